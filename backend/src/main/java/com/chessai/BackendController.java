@@ -4,17 +4,37 @@ import com.chessai.model.Chessboard;
 import com.chessai.model.Move;
 import com.chessai.model.Position;
 import com.chessai.model.Position.Turn;
-import com.chessai.util.ChessboardUtilityModule;
+import com.chessai.search.EngineExecutor;
+import com.chessai.search.EvaluationExecutor;
+import com.chessai.search.SearchEngine;
+import com.chessai.search.SearchListener;
+import com.chessai.search.SearchProgress;
+import com.chessai.search.SearchResult;
+import com.chessai.session.GameSession;
+import com.chessai.session.GameSessionStore;
 import com.chessai.util.EvaluationModule;
+import com.chessai.util.LegalMovesModule;
 import com.chessai.util.OpeningsUtilityModule;
+import com.chessai.util.PerftModule;
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 
+import java.io.IOException;
 import java.text.NumberFormat;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import static com.chessai.util.ChessboardUtilityModule.*;
 
@@ -22,12 +42,15 @@ import static com.chessai.util.ChessboardUtilityModule.*;
 @RequestMapping("/api")
 public class BackendController {
 
-  private final int DEPTH = 4;
-  private boolean pestoInitialized = false;
-  private int moveNumber = 1;
-  private String notation = "";
-  private static int positionsAnalyzed;
-  private static long startTime;
+  // games from clients that do not send a game id share this session
+  private static final String DEFAULT_GAME_ID = "default";
+  private static final long STREAM_TIMEOUT_MS = 60_000;
+  // a perft cannot be cancelled and holds an engine worker until it is done; depth 5 of a busy
+  // middlegame position takes a few seconds
+  private static final int MAX_PERFT_DEPTH = 5;
+  private static final int MAX_EVALUATION_BATCH = 100_000;
+  // smallest part of a batch worth handing to an engine worker of its own
+  private static final int MIN_EVALUATION_CHUNK = 512;
 
   private final String[] OPENING_POSITION = {
           "wR", "wN", "wB", "wQ", "wK", "wB", "wN", "wR",
@@ -40,159 +63,484 @@ public class BackendController {
           "bR", "bN", "bB", "bQ", "bK", "bB", "bN", "bR",
   };
 
-  public static boolean whiteKingHasMoved = false;
-  public static boolean blackKingHasMoved = false;
+  private final SearchEngine searchEngine;
+  private final GameSessionStore gameSessionStore;
+  private final EngineExecutor engineExecutor;
+  private final EvaluationExecutor evaluationExecutor;
+
+  public BackendController(
+      SearchEngine searchEngine,
+      GameSessionStore gameSessionStore,
+      EngineExecutor engineExecutor,
+      EvaluationExecutor evaluationExecutor) {
+    this.searchEngine = searchEngine;
+    this.gameSessionStore = gameSessionStore;
+    this.engineExecutor = engineExecutor;
+    this.evaluationExecutor = evaluationExecutor;
+  }
 
+  /**
+   * Book moves are answered on the request thread. Searches are queued on the engine pool and
+   * answered asynchronously, or turned away with 429 Too Many Requests when the queue is full.
+   */
   @RequestMapping(value = "/getComputerMove", method = RequestMethod.POST)
   @ResponseBody
   @CrossOrigin(origins = "http://localhost:3000")
-  public String getComputerMove(@RequestBody Map<String, String> requestBody) {
-    if (!pestoInitialized) {
-      PestoEval.initTables();
-      OpeningsUtilityModule.initOpeningLines();
-      pestoInitialized = true;
-    }
+  public CompletableFuture<ResponseEntity<String>> getComputerMove(@RequestBody Map<String, String> requestBody) {
+    return computeMove(requestBody, null);
+  }
 
+  /**
+   * Same request as {@link #getComputerMove}, answered as a stream of server-sent events: a
+   * "progress" event after every completed search depth, then a "move" event with the response
+   * getComputerMove would have sent, or a "busy" event where it would have answered 429 (an
+   * "error" event for any other failure). The browser's EventSource only sends GET requests, so
+   * clients read the response body of a POST as a stream instead, as the React client does.
+   * Closing the stream stops the search, which then plays the best move of its last completed
+   * depth; each progress event carries the board after its best move as "updatedBoard", so a
+   * client can play the best move so far by closing the stream.
+   */
+  @RequestMapping(
+      value = "/getComputerMoveStream",
+      method = RequestMethod.POST,
+      produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @CrossOrigin(origins = "http://localhost:3000")
+  public SseEmitter streamComputerMove(@RequestBody Map<String, String> requestBody) {
+    SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
     Gson gson = new Gson();
-    String json = requestBody.get("jsonPayload");
-    String userMove = requestBody.get("notation");
-    String hasUserKingMoved = requestBody.get("whiteKingHasMoved");
-    String[] inputChessboard = gson.fromJson(json, String[].class);
+    // a disconnect is only noticed once a write to the client fails or the container gives up
+    AtomicBoolean closed = new AtomicBoolean();
+    emitter.onCompletion(() -> closed.set(true));
+    emitter.onTimeout(() -> closed.set(true));
+    emitter.onError(error -> closed.set(true));
+    ProgressStream progressStream = new ProgressStream() {
+      @Override
+      public void send(Map<String, Object> progressData) {
+        if (!sendEvent(emitter, "progress", gson.toJson(progressData))) {
+          closed.set(true);
+        }
+      }
+
+      @Override
+      public boolean isClosed() {
+        return closed.get();
+      }
+    };
+
+    computeMove(requestBody, progressStream).whenComplete((response, error) -> {
+      if (error != null) {
+        emitter.completeWithError(error);
+        return;
+      }
+      String eventName;
+      if (response.getStatusCode().is2xxSuccessful()) {
+        eventName = "move";
+      } else if (response.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+        eventName = "busy";
+      } else {
+        eventName = "error";
+      }
+      sendEvent(emitter, eventName, response.getBody());
+      emitter.complete();
+    });
+    return emitter;
+  }
+
+  /**
+   * Stateless alternative to {@link #getComputerMove}: the request gives a position as a FEN
+   * ("fen", the starting position if left out) and optionally moves played from it ("moves", in
+   * coordinate notation separated by spaces, such as "e2e4 e7e5"), and the engine searches for
+   * the side to move. The same request always describes the same position, castling rights and
+   * en passant square included. The opening book is not used, so that repeating a request gives
+   * the same answer.
+   */
+  @RequestMapping(value = "/getComputerMoveFromPosition", method = RequestMethod.POST)
+  @ResponseBody
+  @CrossOrigin(origins = "http://localhost:3000")
+  public CompletableFuture<ResponseEntity<String>> getComputerMoveFromPosition(
+      @RequestBody Map<String, String> requestBody) {
+    Gson gson = new Gson();
+    Map<String, Object> returnData = new HashMap<>();
+    long startTime = System.currentTimeMillis();
+
+    Chessboard chessboard;
+    Turn turn;
+    try {
+      Position position = convertFenToPosition(requestBody.getOrDefault("fen", STARTING_FEN));
+      chessboard = position.board;
+      turn = position.getTurn();
+    } catch (IllegalArgumentException e) {
+      returnData.put("error", e.getMessage());
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(gson.toJson(returnData)));
+    }
 
-    if (hasUserKingMoved.equals("true")) {
-      whiteKingHasMoved = true;
+    String moves = requestBody.getOrDefault("moves", "").trim();
+    if (!moves.isEmpty()) {
+      for (String notation : moves.split("\\s+")) {
+        int move = convertCoordinateNotationToMove(chessboard, turn, notation);
+        if (move == Move.NONE) {
+          returnData.put("error", "Illegal move " + notation + " in " + convertChessboardToFen(chessboard, turn));
+          return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(gson.toJson(returnData)));
+        }
+        chessboard.makeMove(move);
+        // the moves are never taken back, and a long game would overflow the undo stack
+        chessboard.clearUndoHistory();
+        turn = turn == Turn.WHITE ? Turn.BLACK : Turn.WHITE;
+      }
     }
 
-    if (countDifferences(inputChessboard, OPENING_POSITION) == 2) {
-      moveNumber = 1;
-      notation = "";
+    Turn sideToMove = turn;
+    try {
+      return engineExecutor.submit(() -> {
+        SearchResult result = searchEngine.search(chessboard, sideToMove);
+        if (result.getBestMove() == Move.NONE) {
+          boolean isCheckmate = LegalMovesModule.isKingInCheck(chessboard, sideToMove);
+          returnData.put("gameStatus", !isCheckmate ? "1/2-1/2" : sideToMove == Turn.WHITE ? "0-1" : "1-0");
+          returnData.put("fen", convertChessboardToFen(chessboard, sideToMove));
+          return ResponseEntity.ok(gson.toJson(returnData));
+        }
+
+        Move bestMove = Move.fromPacked(result.getBestMove());
+        String notation = convertMoveToAlgebraicNotation(chessboard, sideToMove, result.getBestMove());
+        chessboard.makeMove(result.getBestMove());
+
+        returnData.put("gameStatus", "ongoing");
+        returnData.put("bestMove", convertMoveToCoordinateNotation(result.getBestMove()));
+        returnData.put("notation", notation);
+        returnData.put("fromSquare", bestMove.getFromSquare());
+        returnData.put("toSquare", bestMove.getToSquare());
+        returnData.put("fen", convertChessboardToFen(chessboard, sideToMove == Turn.WHITE ? Turn.BLACK : Turn.WHITE));
+        returnData.put("score", result.getScore());
+        returnData.put("positionsAnalyzed", formatNumberWithCommas(result.getNodes()));
+        returnData.put("depth", result.getDepth());
+        returnData.put("time", (System.currentTimeMillis() - startTime)/1000.0);
+        return ResponseEntity.ok(gson.toJson(returnData));
+      });
+    } catch (RejectedExecutionException e) {
+      return engineBusy(gson);
     }
+  }
 
-    Chessboard chessboard = convertStringArrayToChessboard(inputChessboard);
+  /**
+   * Counts the leaf nodes of the legal move tree below a position (the starting position unless a
+   * FEN is given), with the count below each move, to check move generation and measure its speed.
+   * Runs on the engine pool like a search.
+   */
+  @RequestMapping(value = "/perft", method = RequestMethod.GET)
+  @ResponseBody
+  @CrossOrigin(origins = "http://localhost:3000")
+  public CompletableFuture<ResponseEntity<String>> perft(
+      @RequestParam(value = "fen", defaultValue = STARTING_FEN) String fen,
+      @RequestParam(value = "depth", defaultValue = "5") int depth) {
+    Gson gson = new Gson();
+    Map<String, Object> returnData = new HashMap<>();
+    if (depth < 1 || depth > MAX_PERFT_DEPTH) {
+      returnData.put("error", "Depth must be between 1 and " + MAX_PERFT_DEPTH + ".");
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(gson.toJson(returnData)));
+    }
 
-    notation += moveNumber + ". " + userMove + " ";
+    Position position;
+    try {
+      position = convertFenToPosition(fen);
+    } catch (IllegalArgumentException e) {
+      returnData.put("error", e.getMessage());
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(gson.toJson(returnData)));
+    }
 
-    positionsAnalyzed = 0;
-    startTime = System.currentTimeMillis();
-    if (moveNumber < 20) {
-      return generateMoveFromOpeningBook(chessboard, gson);
-    } else {
-      return generateMoveWithAlphaBeta(chessboard, gson);
+    try {
+      return engineExecutor.submit(() -> {
+        long startTime = System.nanoTime();
+        Map<String, Long> divide = PerftModule.divide(position.board, position.getTurn(), depth);
+        long elapsedNanos = Math.max(1, System.nanoTime() - startTime);
+        long nodes = divide.values().stream().mapToLong(Long::longValue).sum();
+
+        returnData.put("fen", fen);
+        returnData.put("depth", depth);
+        returnData.put("nodes", nodes);
+        returnData.put("divide", divide);
+        returnData.put("time", elapsedNanos / 1_000_000_000.0);
+        returnData.put("nodesPerSecond", nodes * 1_000_000_000L / elapsedNanos);
+        return ResponseEntity.ok(gson.toJson(returnData));
+      });
+    } catch (RejectedExecutionException e) {
+      return engineBusy(gson);
     }
   }
 
-  private String generateMoveWithAlphaBeta(Chessboard chessboard, Gson gson) {
+  /**
+   * Statically evaluates a batch of positions without searching them, given either as FENs
+   * ("fens") or as boards in the format getComputerMove takes ("boards"). The scores are from
+   * white's point of view, in the order of the request. The batch is split into one chunk per
+   * worker of the evaluation pool, which are evaluated in parallel without holding up searches.
+   */
+  @RequestMapping(value = "/evaluatePositions", method = RequestMethod.POST)
+  @ResponseBody
+  @CrossOrigin(origins = "http://localhost:3000")
+  public CompletableFuture<ResponseEntity<String>> evaluatePositions(@RequestBody String requestBody) {
+    Gson gson = new Gson();
     Map<String, Object> returnData = new HashMap<>();
+    long startTime = System.nanoTime();
+
+    EvaluationRequest request;
+    try {
+      request = gson.fromJson(requestBody, EvaluationRequest.class);
+    } catch (JsonParseException e) {
+      returnData.put("error", "Invalid request: " + e.getMessage());
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(gson.toJson(returnData)));
+    }
+    List<String> fens = request != null && request.fens != null ? request.fens : List.of();
+    List<String[]> boards = request != null && request.boards != null ? request.boards : List.of();
+    int count = fens.size() + boards.size();
+    if (fens.isEmpty() == boards.isEmpty() || count > MAX_EVALUATION_BATCH) {
+      returnData.put("error", "Give between 1 and " + MAX_EVALUATION_BATCH + " fens or boards, but not both.");
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(gson.toJson(returnData)));
+    }
 
-    Position rootPosition = new Position(Turn.BLACK, chessboard, null);
-    positionsAnalyzed++;
-    int score = alphaBeta(rootPosition, DEPTH, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+    int[] scores = new int[count];
+    int chunkCount = Math.max(1, Math.min(evaluationExecutor.getWorkers(), count / MIN_EVALUATION_CHUNK));
+    CompletableFuture<?>[] chunks = new CompletableFuture<?>[chunkCount];
+    for (int chunk = 0; chunk < chunkCount; chunk++) {
+      int from = (int) ((long) count * chunk / chunkCount);
+      int to = (int) ((long) count * (chunk + 1) / chunkCount);
+      try {
+        chunks[chunk] = evaluationExecutor.submit(() -> {
+          evaluateChunk(fens, boards, scores, from, to);
+          return null;
+        });
+      } catch (RejectedExecutionException e) {
+        // a cancelled chunk that is still queued is skipped when its turn comes
+        for (int submitted = 0; submitted < chunk; submitted++) {
+          chunks[submitted].cancel(false);
+        }
+        return engineBusy(gson);
+      }
+    }
 
-    Position bestChild = null;
-    if (rootPosition.children.size() == 0) {
-      returnData.put("gameStatus", "1-0");
-      return gson.toJson(returnData);
+    return CompletableFuture.allOf(chunks).handle((ignored, error) -> {
+      if (error != null) {
+        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+        if (!(cause instanceof IllegalArgumentException)) {
+          throw new CompletionException(cause);
+        }
+        returnData.put("error", cause.getMessage());
+        return ResponseEntity.badRequest().body(gson.toJson(returnData));
+      }
+
+      long elapsedNanos = Math.max(1, System.nanoTime() - startTime);
+      returnData.put("scores", scores);
+      returnData.put("positions", count);
+      returnData.put("time", elapsedNanos / 1_000_000_000.0);
+      returnData.put("positionsPerSecond", count * 1_000_000_000L / elapsedNanos);
+      return ResponseEntity.ok(gson.toJson(returnData));
+    });
+  }
+
+  // evaluates the positions from index from up to to into scores; a batch has either fens or boards
+  private static void evaluateChunk(List<String> fens, List<String[]> boards, int[] scores, int from, int to) {
+    for (int i = from; i < to; i++) {
+      Chessboard chessboard;
+      try {
+        chessboard = !fens.isEmpty()
+            ? convertFenToPosition(fens.get(i)).board
+            : convertStringArrayToChessboard(boards.get(i));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Position " + i + ": " + e.getMessage(), e);
+      }
+      scores[i] = EvaluationModule.boardEvaluation(chessboard);
+    }
+  }
+
+  private CompletableFuture<ResponseEntity<String>> computeMove(
+      Map<String, String> requestBody,
+      ProgressStream progressStream) {
+    Gson gson = new Gson();
+    String json = requestBody.get("jsonPayload");
+    String hasUserKingMoved = requestBody.get("whiteKingHasMoved");
+    String gameId = requestBody.getOrDefault("gameId", DEFAULT_GAME_ID);
+    long startTime = System.currentTimeMillis();
+
+    String[] inputChessboard;
+    Chessboard chessboard;
+    try {
+      inputChessboard = gson.fromJson(json, String[].class);
+      chessboard = convertStringArrayToChessboard(inputChessboard);
+    } catch (JsonParseException | IllegalArgumentException e) {
+      Map<String, Object> returnData = new HashMap<>();
+      returnData.put("error", "Invalid board: " + e.getMessage());
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(gson.toJson(returnData)));
     }
 
-    for (Position child : rootPosition.children) {
-      if (child.getScore() == score) {
-        bestChild = child;
-        break;
+    GameSession session = gameSessionStore.getOrCreate(gameId);
+    synchronized (session) {
+      if (countDifferences(inputChessboard, OPENING_POSITION) == 2) {
+        session.reset();
+      }
+
+      if (hasUserKingMoved.equals("true")) {
+        session.setCastlingRights(session.getCastlingRights() & ~Chessboard.WHITE_CASTLING);
+      }
+
+      chessboard.setCastlingRights(session.getCastlingRights());
+
+      if (session.getMoveNumber() < 20) {
+        String openingBookResponse = generateMoveFromOpeningBook(session, chessboard, gson);
+        if (openingBookResponse != null) {
+          return CompletableFuture.completedFuture(ResponseEntity.ok(openingBookResponse));
+        }
       }
     }
 
-    if (bestChild == null) {
-      bestChild = rootPosition.children.get(0);
+    try {
+      return engineExecutor.submit(() -> {
+        synchronized (session) {
+          return ResponseEntity.ok(generateMoveWithAlphaBeta(session, chessboard, gson, startTime, progressStream));
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      return engineBusy(gson);
     }
-    Move bestMove = bestChild.lastMove;
+  }
+
+  private String generateMoveWithAlphaBeta(
+      GameSession session,
+      Chessboard chessboard,
+      Gson gson,
+      long startTime,
+      ProgressStream progressStream) {
+    Map<String, Object> returnData = new HashMap<>();
+
+    // the search works on a copy of the board, so the listener can write out the moves from it
+    SearchListener listener = progressStream == null ? null : new SearchListener() {
+      @Override
+      public void onIterationComplete(SearchProgress progress) {
+        progressStream.send(toProgressData(chessboard, Turn.BLACK, progress));
+      }
 
-    if (bestMove.getPieceType() == Chessboard.Piece.king) {
-      blackKingHasMoved = true;
+      @Override
+      public boolean isStopRequested() {
+        return progressStream.isClosed();
+      }
+    };
+    SearchResult result = searchEngine.search(chessboard, Turn.BLACK, listener);
+    if (result.getBestMove() == Move.NONE) {
+      returnData.put("gameStatus", "1-0");
+      return gson.toJson(returnData);
     }
 
-    notation += bestChild.lastMove.getNotation() + " ";
+    Move bestMove = Move.fromPacked(result.getBestMove());
+
+    chessboard.makeMove(result.getBestMove());
+    // a client that closed the stream may have played an earlier best move instead, and the move
+    // generator checks the king and rook squares anyway, so only a delivered move costs castling
+    if (progressStream == null || !progressStream.isClosed()) {
+      session.setCastlingRights(chessboard.getCastlingRights());
+    }
 
     returnData.put("gameStatus", "ongoing");
-    returnData.put("updatedBoard", convertChessboardToStringArray(bestChild.board));
+    returnData.put("updatedBoard", convertChessboardToStringArray(chessboard));
+    returnData.put("fen", convertChessboardToFen(chessboard, Turn.WHITE));
     returnData.put("fromSquare", bestMove.getFromSquare());
     returnData.put("toSquare", bestMove.getToSquare());
-    returnData.put("score", bestChild.getScore());
-    returnData.put("positionsAnalyzed", formatNumberWithCommas(positionsAnalyzed));
+    returnData.put("score", result.getScore());
+    returnData.put("positionsAnalyzed", formatNumberWithCommas(result.getNodes()));
+    returnData.put("depth", result.getDepth());
     returnData.put("time", (System.currentTimeMillis() - startTime)/1000.0);
 
-    moveNumber++;
+    session.incrementMoveNumber();
 
     return gson.toJson(returnData);
   }
 
-  private String formatNumberWithCommas(int number) {
-    NumberFormat numberFormat = NumberFormat.getInstance();
-    return numberFormat.format(number);
+  private Map<String, Object> toProgressData(Chessboard root, Turn sideToMove, SearchProgress progress) {
+    Move bestMove = Move.fromPacked(progress.getBestMove());
+    List<String> principalVariation = new ArrayList<>();
+    Chessboard board = new Chessboard(root);
+    Turn turn = sideToMove;
+    for (int move : progress.getPrincipalVariation()) {
+      principalVariation.add(convertMoveToAlgebraicNotation(board, turn, move));
+      board.makeMove(move);
+      turn = turn == Turn.WHITE ? Turn.BLACK : Turn.WHITE;
+    }
+    Chessboard afterBestMove = new Chessboard(root);
+    afterBestMove.makeMove(progress.getBestMove());
+
+    Map<String, Object> progressData = new HashMap<>();
+    progressData.put("depth", progress.getDepth());
+    progressData.put("score", progress.getScore());
+    progressData.put("fromSquare", bestMove.getFromSquare());
+    progressData.put("toSquare", bestMove.getToSquare());
+    progressData.put("updatedBoard", convertChessboardToStringArray(afterBestMove));
+    progressData.put("bestMove", principalVariation.get(0));
+    progressData.put("principalVariation", principalVariation);
+    progressData.put("positionsAnalyzed", progress.getNodes());
+    progressData.put("nodesPerSecond", progress.getNodesPerSecond());
+    progressData.put("time", progress.getElapsedMs() / 1000.0);
+    return progressData;
   }
 
-  private String generateMoveFromOpeningBook(Chessboard chessboard, Gson gson) {
+  // answer to a request the engine pool has no room for
+  private static CompletableFuture<ResponseEntity<String>> engineBusy(Gson gson) {
     Map<String, Object> returnData = new HashMap<>();
+    returnData.put("error", "The engine is busy, please try again shortly.");
+    return CompletableFuture.completedFuture(
+        ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(gson.toJson(returnData)));
+  }
 
-    String openingBookSuggestedMoveNotation = OpeningsUtilityModule.scanGames(notation);
-    if (openingBookSuggestedMoveNotation.equals("") || openingBookSuggestedMoveNotation == null) {
-      return generateMoveWithAlphaBeta(chessboard, gson);
-    } else {
-      Move openingBookSuggestedMove = ChessboardUtilityModule.convertNotationToMove(chessboard,
-          openingBookSuggestedMoveNotation);
+  // returns false if the client has gone away
+  private static boolean sendEvent(SseEmitter emitter, String name, String data) {
+    try {
+      emitter.send(SseEmitter.event().name(name).data(data));
+      return true;
+    } catch (IOException | IllegalStateException e) {
+      return false;
+    }
+  }
 
-      if (openingBookSuggestedMove == null) {
-        return generateMoveWithAlphaBeta(chessboard, gson);
-      }
+  private String formatNumberWithCommas(long number) {
+    NumberFormat numberFormat = NumberFormat.getInstance();
+    return numberFormat.format(number);
+  }
 
-      chessboard.makeMove(openingBookSuggestedMove);
+  /**
+   * Plays a book move for the position, or returns null if the position is not in the book.
+   */
+  private String generateMoveFromOpeningBook(GameSession session, Chessboard chessboard, Gson gson) {
+    Map<String, Object> returnData = new HashMap<>();
 
-      notation += openingBookSuggestedMoveNotation + " ";
+    int openingBookMove = OpeningsUtilityModule.getBookMove(chessboard, Turn.BLACK);
+    if (openingBookMove == Move.NONE) {
+      return null;
+    }
+    Move openingBookSuggestedMove = Move.fromPacked(openingBookMove);
 
-      returnData.put("gameStatus", "ongoing");
-      returnData.put("updatedBoard", convertChessboardToStringArray(chessboard));
-      returnData.put("fromSquare", openingBookSuggestedMove.getFromSquare());
-      returnData.put("toSquare", openingBookSuggestedMove.getToSquare());
-      returnData.put("score",
-          EvaluationModule.boardEvaluation(new Position(Turn.WHITE, chessboard, openingBookSuggestedMove)));
-      returnData.put("positionsAnalyzed", "Move from openings book.");
+    chessboard.makeMove(openingBookMove);
+    session.setCastlingRights(chessboard.getCastlingRights());
 
-      moveNumber++;
+    returnData.put("gameStatus", "ongoing");
+    returnData.put("updatedBoard", convertChessboardToStringArray(chessboard));
+    returnData.put("fen", convertChessboardToFen(chessboard, Turn.WHITE));
+    returnData.put("fromSquare", openingBookSuggestedMove.getFromSquare());
+    returnData.put("toSquare", openingBookSuggestedMove.getToSquare());
+    returnData.put("score",
+        EvaluationModule.boardEvaluation(new Position(Turn.WHITE, chessboard)));
+    returnData.put("positionsAnalyzed", "Move from openings book.");
 
-      return gson.toJson(returnData);
-    }
+    session.incrementMoveNumber();
+
+    return gson.toJson(returnData);
   }
 
-  private static int alphaBeta(Position position, int depth, int alpha, int beta, boolean maximizingPlayer) {
-    if (depth == 0) {
-      return position.evaluate();
-    }
+  // where a streamed request's search progress goes, and whether its client is still listening
+  private interface ProgressStream {
 
-    int score = maximizingPlayer ? Integer.MIN_VALUE : Integer.MAX_VALUE;
-    position.whiteKingHasMoved = whiteKingHasMoved;
-    position.blackKingHasMoved = blackKingHasMoved;
-    List<Move> legalMoves = position.getLegalMoves();
-    position.legalMovesInThisPosition = legalMoves.size();
+    void send(Map<String, Object> progressData);
 
-    for (Move legalMove : legalMoves) {
-      Position childPos = convertMoveToPosition(legalMove, position);
-      position.children.add(childPos);
-      positionsAnalyzed++;
-      int childScore = alphaBeta(childPos, depth - 1, alpha, beta, !maximizingPlayer);
-      score = maximizingPlayer ? Math.max(score, childScore) : Math.min(score, childScore);
-      if (maximizingPlayer) {
-        alpha = Math.max(alpha, score);
-        if (beta <= alpha) {
-          break; // Beta cutoff
-        }
-      } else {
-        beta = Math.min(beta, score);
-        if (beta <= alpha) {
-          break; // Alpha cutoff
-        }
-      }
-    }
+    boolean isClosed();
+  }
 
-    position.setScore(score);
-    return score;
+  // body of an evaluatePositions request
+  private static class EvaluationRequest {
+    List<String> fens;
+    List<String[]> boards;
   }
 }
@@ -0,0 +1,100 @@
+package com.chessai;
+
+import com.chessai.model.Chessboard;
+import com.chessai.model.Move;
+import com.chessai.model.Position;
+import com.chessai.model.Position.Turn;
+import com.chessai.search.SearchEngine;
+import com.chessai.util.OpeningsUtilityModule;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import static com.chessai.util.ChessboardUtilityModule.*;
+
+/**
+ * Loads the engine's tables and opening book and warms up the JIT with short searches while the
+ * application starts. Singletons are created before the web server starts listening, so no request
+ * is served until this is done and the first one is as fast as any other.
+ */
+@Component
+public class EngineWarmup {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(EngineWarmup.class);
+
+  // played from the starting position to reach the warm-up positions: an open and a closed
+  // middlegame, and an endgame with few pieces left
+  private static final String[] WARMUP_LINES = {
+          "e4 e5 Nf3 Nc6 Bb5 a6 Ba4 Nf6 O-O Be7 Re1 b5 Bb3 d6 c3 O-O h3",
+          "d4 Nf6 c4 e6 Nc3 Bb4 e3 O-O Bd3 d5 Nf3 c5 O-O Nc6 a3 Bxc3 bxc3 dxc4 Bxc4",
+          "e4 d5 exd5 Qxd5 Nc3 Qa5 d4 Nf6 Nf3 Bf5 Bc4 e6 Bd2 c6 Qe2 Bb4 Ne5 Nbd7 Nxd7 Nxd7 "
+              + "a3 Bxc3 Bxc3 Qc7 O-O O-O Bd3 Bxd3 Qxd3 Nf6 Rfe1 Rfd8 Qe3 Qd6 Qe5 Qxe5 Rxe5 Nd5 "
+              + "Bd2 Nb6 Rae1 Rxd4 Be3 Rd5 Rxd5 Nxd5",
+  };
+
+  private final SearchEngine searchEngine;
+  private final Resource openingBook;
+  private final long warmupTimeBudgetMs;
+
+  public EngineWarmup(
+      SearchEngine searchEngine,
+      @Value("${chessai.opening-book.path}") Resource openingBook,
+      @Value("${chessai.warmup.time-budget-ms:250}") long warmupTimeBudgetMs) {
+    this.searchEngine = searchEngine;
+    this.openingBook = openingBook;
+    this.warmupTimeBudgetMs = warmupTimeBudgetMs;
+  }
+
+  @PostConstruct
+  public void warmUp() {
+    // the transposition table is allocated by the search engine itself; the attack tables, PeSTO
+    // tables and Zobrist keys are loaded by the first position set up and searched below
+    loadOpeningBook();
+
+    for (String line : WARMUP_LINES) {
+      Position position = convertFenToPosition(STARTING_FEN);
+      Chessboard board = position.board;
+      Turn turn = position.getTurn();
+      for (String notation : line.split(" ")) {
+        int move = convertAlgebraicNotationToMove(board, turn, notation);
+        if (move == Move.NONE) {
+          throw new IllegalStateException("Illegal move " + notation + " in warm-up line " + line);
+        }
+        board.makeMove(move);
+        turn = turn == Turn.WHITE ? Turn.BLACK : Turn.WHITE;
+      }
+      searchEngine.search(board, turn, null, warmupTimeBudgetMs);
+    }
+
+    // the first game should not start with entries from the warm-up positions
+    searchEngine.clear();
+  }
+
+  private void loadOpeningBook() {
+    try {
+      Path bookPath;
+      if (openingBook.isFile()) {
+        bookPath = openingBook.getFile().toPath();
+      } else {
+        // a book packaged in the jar cannot be memory-mapped where it is, so map a copy of it
+        bookPath = Files.createTempFile("opening-book", ".bin");
+        bookPath.toFile().deleteOnExit();
+        try (InputStream in = openingBook.getInputStream()) {
+          Files.copy(in, bookPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+      }
+      OpeningsUtilityModule.initOpeningBook(bookPath.toString());
+    } catch (IOException e) {
+      LOGGER.warn("Could not load the opening book {}, every move will be searched: {}", openingBook, e.toString());
+    }
+  }
+}
@@ -1,6 +1,8 @@
 package com.chessai;
 
 import com.chessai.model.Chessboard;
+import com.chessai.model.Chessboard.Piece;
+import com.chessai.model.Position.Turn;
 
 import static com.chessai.model.Chessboard.Piece.pawn;
 import static com.chessai.model.Chessboard.Piece.knight;
@@ -219,84 +221,38 @@ public class PestoEval {
         }
     }
 
-    private static int[] convertBitboardsToIntArray(Chessboard chessboard) {
-        int[] board = new int[64];
-
-        long whitePawns = chessboard.bitboards.get(white) & chessboard.bitboards.get(pawn);
-        long whiteKnights = chessboard.bitboards.get(white) & chessboard.bitboards.get(knight);
-        long whiteBishops = chessboard.bitboards.get(white) & chessboard.bitboards.get(bishop);
-        long whiteRooks = chessboard.bitboards.get(white) & chessboard.bitboards.get(rook);
-        long whiteQueens = chessboard.bitboards.get(white) & chessboard.bitboards.get(queen);
-        long whiteKing = chessboard.bitboards.get(white) & chessboard.bitboards.get(king);
-
-        long blackPawns = chessboard.bitboards.get(black) & chessboard.bitboards.get(pawn);
-        long blackKnights = chessboard.bitboards.get(black) & chessboard.bitboards.get(knight);
-        long blackBishops = chessboard.bitboards.get(black) & chessboard.bitboards.get(bishop);
-        long blackRooks = chessboard.bitboards.get(black) & chessboard.bitboards.get(rook);
-        long blackQueens = chessboard.bitboards.get(black) & chessboard.bitboards.get(queen);
-        long blackKing = chessboard.bitboards.get(black) & chessboard.bitboards.get(king);
-
-        long emptySquares = ~(chessboard.bitboards.get(white) | chessboard.bitboards.get(black));
-
-        for (int i = 0; i < 64; i++) {
-            long square = 1L << i;
-            if ((whitePawns & square) != 0) {
-                board[i] = WHITE_PAWN;
-            } else if ((whiteKnights & square) != 0) {
-                board[i] = WHITE_KNIGHT;
-            } else if ((whiteBishops & square) != 0) {
-                board[i] = WHITE_BISHOP;
-            } else if ((whiteRooks & square) != 0) {
-                board[i] = WHITE_ROOK;
-            } else if ((whiteQueens & square) != 0) {
-                board[i] = WHITE_QUEEN;
-            } else if ((whiteKing & square) != 0) {
-                board[i] = WHITE_KING;
-            } else if ((blackPawns & square) != 0) {
-                board[i] = BLACK_PAWN;
-            } else if ((blackKnights & square) != 0) {
-                board[i] = BLACK_KNIGHT;
-            } else if ((blackBishops & square) != 0) {
-                board[i] = BLACK_BISHOP;
-            } else if ((blackRooks & square) != 0) {
-                board[i] = BLACK_ROOK;
-            } else if ((blackQueens & square) != 0) {
-                board[i] = BLACK_QUEEN;
-            } else if ((blackKing & square) != 0) {
-                board[i] = BLACK_KING;
-            } else if ((emptySquares & square) != 0) {
-                board[i] = EMPTY;
-            }
-        }
+    static {
+        initTables();
+    }
+
+    /**
+     * Returns the middlegame value (material plus piece-square bonus) of a piece on the square.
+     */
+    public static int getMidgameValue(Turn color, Piece piece, int square) {
+        return mg_table[2 * piece.ordinal() + (color == Turn.WHITE ? WHITE : BLACK)][square];
+    }
 
-        return board;
+    /**
+     * Returns the endgame value (material plus piece-square bonus) of a piece on the square.
+     */
+    public static int getEndgameValue(Turn color, Piece piece, int square) {
+        return eg_table[2 * piece.ordinal() + (color == Turn.WHITE ? WHITE : BLACK)][square];
     }
 
+    public static int getGamePhaseIncrement(Piece piece) {
+        return gamephaseInc[2 * piece.ordinal()];
+    }
+
+    /**
+     * The piece-square sums and game phase are kept up to date by Chessboard as moves are made,
+     * so only the final taper is computed here.
+     */
     public static int eval(Chessboard chessboard) {
-        int[] board = convertBitboardsToIntArray(chessboard);
-
-        int[] mg = new int[2];
-        int[] eg = new int[2];
-        int gamePhase = 0;
-
-        mg[WHITE] = 0;
-        mg[BLACK] = 0;
-        eg[WHITE] = 0;
-        eg[BLACK] = 0;
-
-        // evaluate each piece
-        for (int sq = 0; sq < 64; ++sq) {
-            int pc = board[sq];
-            if (pc != EMPTY) {
-                mg[PCOLOR(pc)] += mg_table[pc][sq];
-                eg[PCOLOR(pc)] += eg_table[pc][sq];
-                gamePhase += gamephaseInc[pc];
-            }
-        }
+        int gamePhase = chessboard.getGamePhase();
 
         // tapered eval
-        int mgScore = mg[sideTwoMove] - mg[OTHER(sideTwoMove)];
-        int egScore = eg[sideTwoMove] - eg[OTHER(sideTwoMove)];
+        int mgScore = chessboard.getMidgameScore();
+        int egScore = chessboard.getEndgameScore();
         int mgPhase = gamePhase;
         if (mgPhase > 24)
             mgPhase = 24; // in case of early promotion
@@ -1,15 +1,12 @@
 package com.chessai.model;
 
+import com.chessai.PestoEval;
 import com.chessai.util.ChessboardUtilityModule;
-
-import static com.chessai.util.BitboardUtilityModule.generateBitboardFromIndex;
-
-import java.util.HashMap;
-import java.util.Map;
+import com.chessai.util.ZobristModule;
 
 public class Chessboard {
 
-  public Map<Piece, Long> bitboards;
+  private final long[] bitboards;
 
   public enum Piece {
     pawn,
@@ -23,166 +20,443 @@ public class Chessboard {
     empty,
   }
 
+  public static final int WHITE_SHORT_CASTLE = 1;
+  public static final int WHITE_LONG_CASTLE = 2;
+  public static final int BLACK_SHORT_CASTLE = 4;
+  public static final int BLACK_LONG_CASTLE = 8;
+  public static final int WHITE_CASTLING = WHITE_SHORT_CASTLE | WHITE_LONG_CASTLE;
+  public static final int BLACK_CASTLING = BLACK_SHORT_CASTLE | BLACK_LONG_CASTLE;
+  public static final int ALL_CASTLING = WHITE_CASTLING | BLACK_CASTLING;
+
+  public static final int NO_EN_PASSANT = -1;
+
+  private static final int PIECE_COUNT = Piece.values().length;
+  private static final int MAX_UNDO_DEPTH = 256;
+
+  private static final long A1 = 1L;
+  private static final long H1 = 1L << 7;
+  private static final long A8 = 1L << 56;
+  private static final long H8 = 1L << 63;
+
+  private int castlingRights;
+  // the square a pawn that just advanced two squares skipped over, which an enemy pawn may capture on
+  private int enPassantSquare;
+  private long zobristKey;
+
+  // PeSTO middlegame and endgame sums (white minus black) and game phase, kept up to date by
+  // makeMove; they are recomputed from scratch once the bitboards have been edited directly
+  private int midgameScore;
+  private int endgameScore;
+  private int gamePhase;
+  private boolean evaluationTermsValid;
+
+  // undo stack, one entry per move made on this board and not yet unmade; the captured piece
+  // travels inside the packed move itself
+  private final int[] undoMoves;
+  private final int[] undoCastlingRights;
+  private final int[] undoEnPassantSquares;
+  private final long[] undoZobristKeys;
+  private final int[] undoMidgameScores;
+  private final int[] undoEndgameScores;
+  private final int[] undoGamePhases;
+  private int undoSize;
+
   public Chessboard() {
-    this.bitboards = new HashMap<>();
-    this.bitboards.put(
-        Piece.pawn,
-        0b0000000000000000000000000000000000000000000000000000000000000000L
-      );
-    this.bitboards.put(
-        Piece.knight,
-        0b0000000000000000000000000000000000000000000000000000000000000000L
-      );
-    this.bitboards.put(
-        Piece.bishop,
-        0b0000000000000000000000000000000000000000000000000000000000000000L
-      );
-    this.bitboards.put(
-        Piece.rook,
-        0b0000000000000000000000000000000000000000000000000000000000000000L
-      );
-    this.bitboards.put(
-        Piece.queen,
-        0b0000000000000000000000000000000000000000000000000000000000000000L
-      );
-    this.bitboards.put(
-        Piece.king,
-        0b0000000000000000000000000000000000000000000000000000000000000000L
-      );
-    this.bitboards.put(
-        Piece.white,
-        0b0000000000000000000000000000000000000000000000000000000000000000L
-      );
-    this.bitboards.put(
-        Piece.black,
-        0b0000000000000000000000000000000000000000000000000000000000000000L
-      );
-    this.bitboards.put(
-        Piece.empty,
-        0b0000000000000000000000000000000000000000000000000000000000000000L
-      );
+    this.bitboards = new long[PIECE_COUNT];
+    this.castlingRights = 0;
+    this.enPassantSquare = NO_EN_PASSANT;
+    this.zobristKey = 0L;
+    this.evaluationTermsValid = false;
+    this.undoMoves = new int[MAX_UNDO_DEPTH];
+    this.undoCastlingRights = new int[MAX_UNDO_DEPTH];
+    this.undoEnPassantSquares = new int[MAX_UNDO_DEPTH];
+    this.undoZobristKeys = new long[MAX_UNDO_DEPTH];
+    this.undoMidgameScores = new int[MAX_UNDO_DEPTH];
+    this.undoEndgameScores = new int[MAX_UNDO_DEPTH];
+    this.undoGamePhases = new int[MAX_UNDO_DEPTH];
+    this.undoSize = 0;
   }
 
   public Chessboard(Chessboard old) {
-    this.bitboards = new HashMap<>(old.bitboards);
-  }
-
-  public void makeMove(Move move) {
-    if (move.isMoveLongCastle() || move.isMoveShortCastle()) {
-      long kingBitboard = this.bitboards.get(Piece.king);
-      long rooksBitboard = this.bitboards.get(Piece.rook);
-      if (move.getPieceColor() == Position.Turn.WHITE) {
-        if (move.isMoveShortCastle()) {
-          bitboards.put(Piece.king, kingBitboard ^ ChessboardUtilityModule.WHITE_SHORT_CASTLE_NEW_KING_POSITION);
-          bitboards.put(Piece.rook, rooksBitboard ^ ChessboardUtilityModule.WHITE_SHORT_CASTLE_NEW_ROOK_POSITION);
-        } else if (move.isMoveLongCastle()) {
-          bitboards.put(Piece.king, kingBitboard ^ ChessboardUtilityModule.WHITE_LONG_CASTLE_NEW_KING_POSITION);
-          bitboards.put(Piece.rook, rooksBitboard ^ ChessboardUtilityModule.WHITE_LONG_CASTLE_NEW_ROOK_POSITION);
-        }
-        bitboards.put(Piece.white, bitboards.get(Piece.white) |
-                ((bitboards.get(Piece.rook)) | bitboards.get(Piece.king) ^ bitboards.get(Piece.black)));
+    this.bitboards = old.bitboards.clone();
+    this.castlingRights = old.castlingRights;
+    this.enPassantSquare = old.enPassantSquare;
+    this.zobristKey = old.zobristKey;
+    this.midgameScore = old.midgameScore;
+    this.endgameScore = old.endgameScore;
+    this.gamePhase = old.gamePhase;
+    this.evaluationTermsValid = old.evaluationTermsValid;
+    this.undoMoves = new int[MAX_UNDO_DEPTH];
+    this.undoCastlingRights = new int[MAX_UNDO_DEPTH];
+    this.undoEnPassantSquares = new int[MAX_UNDO_DEPTH];
+    this.undoZobristKeys = new long[MAX_UNDO_DEPTH];
+    this.undoMidgameScores = new int[MAX_UNDO_DEPTH];
+    this.undoEndgameScores = new int[MAX_UNDO_DEPTH];
+    this.undoGamePhases = new int[MAX_UNDO_DEPTH];
+    this.undoSize = 0;
+  }
+
+  public long getBitboard(Piece piece) {
+    return bitboards[piece.ordinal()];
+  }
+
+  public void setBitboard(Piece piece, long bitboard) {
+    bitboards[piece.ordinal()] = bitboard;
+    evaluationTermsValid = false;
+  }
+
+  public long getColorBitboard(Position.Turn color) {
+    return color == Position.Turn.WHITE
+      ? bitboards[Piece.white.ordinal()]
+      : bitboards[Piece.black.ordinal()];
+  }
+
+  public long getPieceBitboard(Piece pieceType, Position.Turn color) {
+    return bitboards[pieceType.ordinal()] & getColorBitboard(color);
+  }
+
+  public int getCastlingRights() {
+    return castlingRights;
+  }
+
+  public void setCastlingRights(int castlingRights) {
+    this.castlingRights = castlingRights;
+  }
+
+  public boolean canCastle(int castle) {
+    return (castlingRights & castle) != 0;
+  }
+
+  /**
+   * Returns the square behind a pawn that has just advanced two squares, or
+   * {@link #NO_EN_PASSANT}.
+   */
+  public int getEnPassantSquare() {
+    return enPassantSquare;
+  }
+
+  public void setEnPassantSquare(int enPassantSquare) {
+    this.enPassantSquare = enPassantSquare;
+  }
+
+  public long getZobristKey() {
+    return zobristKey;
+  }
+
+  /**
+   * Rehashes the board from scratch. Must be called once the pieces and castling rights have been
+   * set up; from then on makeMove and unmakeMove keep the key up to date.
+   */
+  public void computeZobristKey(Position.Turn sideToMove) {
+    this.zobristKey = ZobristModule.computeKey(this, sideToMove);
+  }
+
+  public int getMidgameScore() {
+    ensureEvaluationTerms();
+    return midgameScore;
+  }
+
+  public int getEndgameScore() {
+    ensureEvaluationTerms();
+    return endgameScore;
+  }
+
+  public int getGamePhase() {
+    ensureEvaluationTerms();
+    return gamePhase;
+  }
+
+  /**
+   * Returns the type of the piece on the given square, regardless of its color, or
+   * {@link Piece#empty} if the square is unoccupied.
+   */
+  public Piece getPieceOn(int square) {
+    long squareMask = 1L << square;
+    if ((bitboards[Piece.empty.ordinal()] & squareMask) != 0) return Piece.empty;
+    if ((bitboards[Piece.pawn.ordinal()] & squareMask) != 0) return Piece.pawn;
+    if ((bitboards[Piece.knight.ordinal()] & squareMask) != 0) return Piece.knight;
+    if ((bitboards[Piece.bishop.ordinal()] & squareMask) != 0) return Piece.bishop;
+    if ((bitboards[Piece.rook.ordinal()] & squareMask) != 0) return Piece.rook;
+    if ((bitboards[Piece.queen.ordinal()] & squareMask) != 0) return Piece.queen;
+    if ((bitboards[Piece.king.ordinal()] & squareMask) != 0) return Piece.king;
+    return Piece.empty;
+  }
+
+  /**
+   * Plays the packed move on this board in place. The move and the castling rights and en passant
+   * square before it are pushed onto the undo stack so that {@link #unmakeMove()} can restore the
+   * position.
+   */
+  public void makeMove(int move) {
+    ensureEvaluationTerms();
+    undoMoves[undoSize] = move;
+    undoCastlingRights[undoSize] = castlingRights;
+    undoEnPassantSquares[undoSize] = enPassantSquare;
+    undoZobristKeys[undoSize] = zobristKey;
+    undoMidgameScores[undoSize] = midgameScore;
+    undoEndgameScores[undoSize] = endgameScore;
+    undoGamePhases[undoSize] = gamePhase;
+    undoSize++;
+
+    Position.Turn color = Move.pieceColor(move);
+    int colorIndex = color == Position.Turn.WHITE
+            ? Piece.white.ordinal()
+            : Piece.black.ordinal();
+    long key = zobristKey
+            ^ ZobristModule.getBlackToMoveKey()
+            ^ ZobristModule.getCastlingKey(castlingRights)
+            ^ ZobristModule.getEnPassantKey(enPassantSquare);
+    enPassantSquare = NO_EN_PASSANT;
+
+    if (Move.isCastle(move)) {
+      long kingMask = getCastleKingMask(move);
+      long rookMask = getCastleRookMask(move);
+      bitboards[Piece.king.ordinal()] ^= kingMask;
+      bitboards[Piece.rook.ordinal()] ^= rookMask;
+      bitboards[colorIndex] ^= kingMask | rookMask;
+      castlingRights &= colorIndex == Piece.white.ordinal() ? ~WHITE_CASTLING : ~BLACK_CASTLING;
+
+      key ^= getSquaresKey(color, Piece.king, kingMask) ^ getSquaresKey(color, Piece.rook, rookMask);
+
+      int kingSquare = color == Position.Turn.WHITE ? 4 : 60;
+      boolean isShortCastle = Move.isShortCastle(move);
+      movePieceTerms(color, Piece.king, kingSquare, isShortCastle ? kingSquare + 2 : kingSquare - 2);
+      movePieceTerms(
+              color,
+              Piece.rook,
+              isShortCastle ? kingSquare + 3 : kingSquare - 4,
+              isShortCastle ? kingSquare + 1 : kingSquare - 1);
+    } else {
+      int fromSquare = Move.fromSquare(move);
+      int toSquare = Move.toSquare(move);
+      long fromMask = 1L << fromSquare;
+      long toMask = 1L << toSquare;
+
+      Piece capturedPiece = Move.capturedPiece(move);
+      if (capturedPiece != Piece.empty) {
+        int capturedSquare = getCapturedSquare(move);
+        long capturedMask = 1L << capturedSquare;
+        bitboards[capturedPiece.ordinal()] &= ~capturedMask;
+        bitboards[colorIndex ^ 1] &= ~capturedMask;
+        Position.Turn capturedColor = color == Position.Turn.WHITE
+                ? Position.Turn.BLACK
+                : Position.Turn.WHITE;
+        key ^= ZobristModule.getPieceKey(capturedColor, capturedPiece, capturedSquare);
+        removePieceTerms(capturedColor, capturedPiece, capturedSquare);
+      }
+
+      Piece pieceType = Move.pieceType(move);
+      int pieceIndex = pieceType.ordinal();
+      Piece promotionPiece = Move.promotionPiece(move);
+      if (promotionPiece == Piece.empty) {
+        bitboards[pieceIndex] = (bitboards[pieceIndex] & ~fromMask) | toMask;
+        key ^= ZobristModule.getPieceKey(color, pieceType, fromSquare)
+                ^ ZobristModule.getPieceKey(color, pieceType, toSquare);
+        movePieceTerms(color, pieceType, fromSquare, toSquare);
       } else {
-        if (move.isMoveShortCastle()) {
-          this.bitboards.put(Piece.king, kingBitboard ^ ChessboardUtilityModule.BLACK_SHORT_CASTLE_NEW_KING_POSITION);
-          this.bitboards.put(Piece.rook, rooksBitboard ^ ChessboardUtilityModule.BLACK_SHORT_CASTLE_NEW_ROOK_POSITION);
-        } else if (move.isMoveLongCastle()) {
-          this.bitboards.put(Piece.king, kingBitboard ^ ChessboardUtilityModule.BLACK_LONG_CASTLE_NEW_KING_POSITION);
-          this.bitboards.put(Piece.rook, rooksBitboard ^ ChessboardUtilityModule.BLACK_LONG_CASTLE_NEW_ROOK_POSITION);
-        }
-        bitboards.put(Piece.black, bitboards.get(Piece.black) |
-                ((bitboards.get(Piece.rook)) | bitboards.get(Piece.king) ^ bitboards.get(Piece.white)));
+        bitboards[pieceIndex] &= ~fromMask;
+        bitboards[promotionPiece.ordinal()] |= toMask;
+        key ^= ZobristModule.getPieceKey(color, pieceType, fromSquare)
+                ^ ZobristModule.getPieceKey(color, promotionPiece, toSquare);
+        removePieceTerms(color, pieceType, fromSquare);
+        addPieceTerms(color, promotionPiece, toSquare);
       }
-      bitboards.put(Piece.empty, ~(bitboards.get(Chessboard.Piece.white) | bitboards.get(Chessboard.Piece.black)));
-    } else {
-      long fromMask = 1L << move.getFromSquare();
-      long toMask = 1L << move.getToSquare();
-
-      Chessboard.Piece pieceType = move.getPieceType();
-      Chessboard.Piece pieceColor = move.getPieceColor() == Position.Turn.WHITE
-              ? Chessboard.Piece.white
-              : Chessboard.Piece.black;
-
-      long pieceTypeBitboard = this.bitboards.get(pieceType);
-      pieceTypeBitboard &= (~fromMask);
-      pieceTypeBitboard |= toMask;
-      this.bitboards.put(pieceType, pieceTypeBitboard);
-
-      long pieceColorBitboard = this.bitboards.get(pieceColor);
-      pieceColorBitboard &= (~fromMask);
-      pieceColorBitboard |= toMask;
-      this.bitboards.put(pieceColor, pieceColorBitboard);
-
-      Chessboard.Piece capturedPiece = getPieceType(
-              move.getToSquare(),
-              move.getPieceColor() == Position.Turn.WHITE
-                      ? Position.Turn.BLACK
-                      : Position.Turn.WHITE
-      );
-
-      if (capturedPiece != Chessboard.Piece.empty) {
-        long capturedPieceBitboard = this.bitboards.get(capturedPiece);
-        capturedPieceBitboard &= (~toMask);
-
-        // ensure that the same piece's bitboard is not overwritten/toggled twice
-        if (capturedPiece != pieceType) this.bitboards.put(
-                capturedPiece,
-                capturedPieceBitboard
-        );
-
-        Chessboard.Piece opponentColor = move.getPieceColor() ==
-                Position.Turn.WHITE
-                ? Chessboard.Piece.black
-                : Chessboard.Piece.white;
-        long opponentColorBitboard = this.bitboards.get(opponentColor);
-        opponentColorBitboard &= (~toMask);
-        this.bitboards.put(opponentColor, opponentColorBitboard);
+      bitboards[colorIndex] = (bitboards[colorIndex] & ~fromMask) | toMask;
+
+      if (pieceType == Piece.pawn && Math.abs(toSquare - fromSquare) == 16) {
+        enPassantSquare = (fromSquare + toSquare) / 2;
       }
 
-      this.bitboards.put(
-              Chessboard.Piece.empty,
-              ~(
-                      this.bitboards.get(Chessboard.Piece.white) |
-                              this.bitboards.get(Chessboard.Piece.black)
-              )
-      );
+      updateCastlingRights(pieceType, colorIndex, fromMask | toMask);
     }
+
+    zobristKey = key
+            ^ ZobristModule.getCastlingKey(castlingRights)
+            ^ ZobristModule.getEnPassantKey(enPassantSquare);
+    bitboards[Piece.empty.ordinal()] =
+            ~(bitboards[Piece.white.ordinal()] | bitboards[Piece.black.ordinal()]);
+  }
+
+  /**
+   * Passes the turn to the opponent without moving, for null-move pruning. It goes onto the undo
+   * stack like a move of its own and is taken back with {@link #unmakeMove()}.
+   */
+  public void makeNullMove() {
+    ensureEvaluationTerms();
+    undoMoves[undoSize] = Move.NONE;
+    undoCastlingRights[undoSize] = castlingRights;
+    undoEnPassantSquares[undoSize] = enPassantSquare;
+    undoZobristKeys[undoSize] = zobristKey;
+    undoMidgameScores[undoSize] = midgameScore;
+    undoEndgameScores[undoSize] = endgameScore;
+    undoGamePhases[undoSize] = gamePhase;
+    undoSize++;
+
+    zobristKey ^= ZobristModule.getBlackToMoveKey() ^ ZobristModule.getEnPassantKey(enPassantSquare);
+    enPassantSquare = NO_EN_PASSANT;
   }
 
-  private Chessboard.Piece getPieceType(
-    int index,
-    Position.Turn opponentColor
-  ) {
-    long capturedPieceBitboard = generateBitboardFromIndex(index);
-    long opponentBitboard = opponentColor == Position.Turn.WHITE
-      ? this.bitboards.get(Chessboard.Piece.white)
-      : this.bitboards.get(Chessboard.Piece.black);
-    long opponentPawnBitboard =
-      opponentBitboard & this.bitboards.get(Chessboard.Piece.pawn);
-    long opponentKnightBitboard =
-      opponentBitboard & this.bitboards.get(Chessboard.Piece.knight);
-    long opponentBishopBitboard =
-      opponentBitboard & this.bitboards.get(Chessboard.Piece.bishop);
-    long opponentRookBitboard =
-      opponentBitboard & this.bitboards.get(Chessboard.Piece.rook);
-    long opponentQueenBitboard =
-      opponentBitboard & this.bitboards.get(Chessboard.Piece.queen);
-    long opponentKingBitboard =
-      opponentBitboard & this.bitboards.get(Chessboard.Piece.king);
-
-    if ((capturedPieceBitboard & opponentPawnBitboard) != 0) {
-      return Chessboard.Piece.pawn;
-    } else if ((capturedPieceBitboard & opponentKnightBitboard) != 0) {
-      return Chessboard.Piece.knight;
-    } else if ((capturedPieceBitboard & opponentBishopBitboard) != 0) {
-      return Chessboard.Piece.bishop;
-    } else if ((capturedPieceBitboard & opponentRookBitboard) != 0) {
-      return Chessboard.Piece.rook;
-    } else if ((capturedPieceBitboard & opponentQueenBitboard) != 0) {
-      return Chessboard.Piece.queen;
-    } else if ((capturedPieceBitboard & opponentKingBitboard) != 0) {
-      return Chessboard.Piece.king;
+  /**
+   * Forgets the moves made so far, which can then no longer be taken back. Used when replaying
+   * games longer than the undo stack.
+   */
+  public void clearUndoHistory() {
+    undoSize = 0;
+  }
+
+  /**
+   * Takes back the last move played with {@link #makeMove(int)} or {@link #makeNullMove()}.
+   */
+  public void unmakeMove() {
+    undoSize--;
+    int move = undoMoves[undoSize];
+    castlingRights = undoCastlingRights[undoSize];
+    enPassantSquare = undoEnPassantSquares[undoSize];
+    zobristKey = undoZobristKeys[undoSize];
+    midgameScore = undoMidgameScores[undoSize];
+    endgameScore = undoEndgameScores[undoSize];
+    gamePhase = undoGamePhases[undoSize];
+
+    if (move == Move.NONE) {
+      return;
+    }
+
+    int colorIndex = Move.pieceColor(move) == Position.Turn.WHITE
+            ? Piece.white.ordinal()
+            : Piece.black.ordinal();
+
+    if (Move.isCastle(move)) {
+      long kingMask = getCastleKingMask(move);
+      long rookMask = getCastleRookMask(move);
+      bitboards[Piece.king.ordinal()] ^= kingMask;
+      bitboards[Piece.rook.ordinal()] ^= rookMask;
+      bitboards[colorIndex] ^= kingMask | rookMask;
     } else {
-      return Chessboard.Piece.empty;
+      long fromMask = 1L << Move.fromSquare(move);
+      long toMask = 1L << Move.toSquare(move);
+
+      int pieceIndex = Move.pieceType(move).ordinal();
+      Piece promotionPiece = Move.promotionPiece(move);
+      if (promotionPiece == Piece.empty) {
+        bitboards[pieceIndex] = (bitboards[pieceIndex] & ~toMask) | fromMask;
+      } else {
+        bitboards[promotionPiece.ordinal()] &= ~toMask;
+        bitboards[pieceIndex] |= fromMask;
+      }
+      bitboards[colorIndex] = (bitboards[colorIndex] & ~toMask) | fromMask;
+
+      Piece capturedPiece = Move.capturedPiece(move);
+      if (capturedPiece != Piece.empty) {
+        long capturedMask = 1L << getCapturedSquare(move);
+        bitboards[capturedPiece.ordinal()] |= capturedMask;
+        bitboards[colorIndex ^ 1] |= capturedMask;
+      }
+    }
+
+    bitboards[Piece.empty.ordinal()] =
+            ~(bitboards[Piece.white.ordinal()] | bitboards[Piece.black.ordinal()]);
+  }
+
+  private void updateCastlingRights(Piece pieceType, int colorIndex, long touched) {
+    if (castlingRights == 0) {
+      return;
+    }
+
+    if (pieceType == Piece.king) {
+      castlingRights &= colorIndex == Piece.white.ordinal() ? ~WHITE_CASTLING : ~BLACK_CASTLING;
+      return;
+    }
+
+    // a rook leaving or being captured on its home square loses that side's castling right
+    if ((touched & H1) != 0) castlingRights &= ~WHITE_SHORT_CASTLE;
+    if ((touched & A1) != 0) castlingRights &= ~WHITE_LONG_CASTLE;
+    if ((touched & H8) != 0) castlingRights &= ~BLACK_SHORT_CASTLE;
+    if ((touched & A8) != 0) castlingRights &= ~BLACK_LONG_CASTLE;
+  }
+
+  private void movePieceTerms(Position.Turn color, Piece pieceType, int fromSquare, int toSquare) {
+    int sign = color == Position.Turn.WHITE ? 1 : -1;
+    midgameScore += sign * (PestoEval.getMidgameValue(color, pieceType, toSquare)
+            - PestoEval.getMidgameValue(color, pieceType, fromSquare));
+    endgameScore += sign * (PestoEval.getEndgameValue(color, pieceType, toSquare)
+            - PestoEval.getEndgameValue(color, pieceType, fromSquare));
+  }
+
+  private void addPieceTerms(Position.Turn color, Piece pieceType, int square) {
+    int sign = color == Position.Turn.WHITE ? 1 : -1;
+    midgameScore += sign * PestoEval.getMidgameValue(color, pieceType, square);
+    endgameScore += sign * PestoEval.getEndgameValue(color, pieceType, square);
+    gamePhase += PestoEval.getGamePhaseIncrement(pieceType);
+  }
+
+  private void removePieceTerms(Position.Turn color, Piece pieceType, int square) {
+    int sign = color == Position.Turn.WHITE ? 1 : -1;
+    midgameScore -= sign * PestoEval.getMidgameValue(color, pieceType, square);
+    endgameScore -= sign * PestoEval.getEndgameValue(color, pieceType, square);
+    gamePhase -= PestoEval.getGamePhaseIncrement(pieceType);
+  }
+
+  private void ensureEvaluationTerms() {
+    if (evaluationTermsValid) {
+      return;
+    }
+
+    midgameScore = 0;
+    endgameScore = 0;
+    gamePhase = 0;
+    for (Position.Turn color : Position.Turn.values()) {
+      int sign = color == Position.Turn.WHITE ? 1 : -1;
+      for (int piece = 0; piece < 6; piece++) {
+        Piece pieceType = Piece.values()[piece];
+        long pieces = getPieceBitboard(pieceType, color);
+        while (pieces != 0) {
+          int square = Long.numberOfTrailingZeros(pieces);
+          midgameScore += sign * PestoEval.getMidgameValue(color, pieceType, square);
+          endgameScore += sign * PestoEval.getEndgameValue(color, pieceType, square);
+          gamePhase += PestoEval.getGamePhaseIncrement(pieceType);
+          pieces &= pieces - 1;
+        }
+      }
+    }
+    evaluationTermsValid = true;
+  }
+
+  private static long getSquaresKey(Position.Turn color, Piece pieceType, long squares) {
+    long key = 0L;
+    while (squares != 0) {
+      key ^= ZobristModule.getPieceKey(color, pieceType, Long.numberOfTrailingZeros(squares));
+      squares &= squares - 1;
+    }
+    return key;
+  }
+
+  // a pawn taken en passant stands beside the capturing pawn, not on its target square
+  private static int getCapturedSquare(int move) {
+    if (!Move.isEnPassant(move)) {
+      return Move.toSquare(move);
+    }
+    return Move.pieceColor(move) == Position.Turn.WHITE ? Move.toSquare(move) - 8 : Move.toSquare(move) + 8;
+  }
+
+  private static long getCastleKingMask(int move) {
+    if (Move.pieceColor(move) == Position.Turn.WHITE) {
+      return Move.isShortCastle(move)
+              ? ChessboardUtilityModule.WHITE_SHORT_CASTLE_NEW_KING_POSITION
+              : ChessboardUtilityModule.WHITE_LONG_CASTLE_NEW_KING_POSITION;
+    }
+    return Move.isShortCastle(move)
+            ? ChessboardUtilityModule.BLACK_SHORT_CASTLE_NEW_KING_POSITION
+            : ChessboardUtilityModule.BLACK_LONG_CASTLE_NEW_KING_POSITION;
+  }
+
+  private static long getCastleRookMask(int move) {
+    if (Move.pieceColor(move) == Position.Turn.WHITE) {
+      return Move.isShortCastle(move)
+              ? ChessboardUtilityModule.WHITE_SHORT_CASTLE_NEW_ROOK_POSITION
+              : ChessboardUtilityModule.WHITE_LONG_CASTLE_NEW_ROOK_POSITION;
     }
+    return Move.isShortCastle(move)
+            ? ChessboardUtilityModule.BLACK_SHORT_CASTLE_NEW_ROOK_POSITION
+            : ChessboardUtilityModule.BLACK_LONG_CASTLE_NEW_ROOK_POSITION;
   }
 }
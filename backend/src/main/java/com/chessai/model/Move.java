@@ -1,11 +1,34 @@
 package com.chessai.model;
 
 import static com.chessai.model.Chessboard.Piece.*;
-import static com.chessai.util.ChessboardUtilityModule.getPieceCharFromPieceType;
-import static com.chessai.util.ChessboardUtilityModule.squares;
 
+/**
+ * A move as exchanged with the REST layer and the opening book. Inside the engine moves are packed
+ * into a single int (see {@link #encode}) so that move generation and search do not allocate.
+ */
 public class Move {
 
+  // packed move layout:
+  // bits 0-5 from square, 6-11 to square, 12-14 piece type, 15 color (set for black),
+  // 16-19 captured piece type (empty for quiet moves), 20 short castle, 21 long castle,
+  // 22-24 promotion piece type (0 if the move is not a promotion), 25 en passant capture
+  private static final int SQUARE_MASK = 0x3F;
+  private static final int TO_SHIFT = 6;
+  private static final int PIECE_SHIFT = 12;
+  private static final int PIECE_MASK = 0x7;
+  private static final int COLOR_BIT = 1 << 15;
+  private static final int CAPTURED_SHIFT = 16;
+  private static final int CAPTURED_MASK = 0xF;
+  private static final int SHORT_CASTLE_BIT = 1 << 20;
+  private static final int LONG_CASTLE_BIT = 1 << 21;
+  private static final int PROMOTION_SHIFT = 22;
+  private static final int PROMOTION_MASK = 0x7;
+  private static final int EN_PASSANT_BIT = 1 << 25;
+
+  private static final Chessboard.Piece[] PIECES = Chessboard.Piece.values();
+
+  public static final int NONE = 0;
+
   private int fromSquare;
   private int toSquare;
   private Chessboard.Piece pieceType;
@@ -13,6 +36,7 @@ public class Move {
   private boolean isCapture;
   private boolean isMoveShortCastle;
   private boolean isMoveLongCastle;
+  private Chessboard.Piece promotionPiece = empty;
 
   public Move(
       int fromSquare,
@@ -31,14 +55,6 @@ public class Move {
     this.isMoveLongCastle = isMoveLongCastle;
   }
 
-  public Move(Move old) {
-    this.fromSquare = old.getFromSquare();
-    this.toSquare = old.getToSquare();
-    this.pieceType = old.getPieceType();
-    this.pieceColor = old.getPieceColor();
-    this.isCapture = old.isCapture();
-  }
-
   public int getFromSquare() {
     return fromSquare;
   }
@@ -75,26 +91,15 @@ public class Move {
     return isCapture;
   }
 
-  public String getNotation() {
-    String notation = "";
-
-    if (isMoveShortCastle) {
-      return "O-O";
-    } else if (isMoveLongCastle) {
-      return "O-O-O";
-    }
-
-    if (!pieceType.equals(pawn)) {
-      notation += getPieceCharFromPieceType(this.pieceType);
-    }
-
-    if (this.isCapture) {
-      notation += "x";
-    }
-
-    notation += squares[this.toSquare];
+  /**
+   * Returns the piece a pawn promotes to with this move, or {@link Chessboard.Piece#empty}.
+   */
+  public Chessboard.Piece getPromotionPiece() {
+    return promotionPiece;
+  }
 
-    return notation;
+  public void setPromotionPiece(Chessboard.Piece promotionPiece) {
+    this.promotionPiece = promotionPiece;
   }
 
   public boolean isMoveShortCastle() {
@@ -104,4 +109,99 @@ public class Move {
   public boolean isMoveLongCastle() {
     return isMoveLongCastle;
   }
+
+  public static Move fromPacked(int move) {
+    Move unpacked = new Move(
+        fromSquare(move),
+        toSquare(move),
+        pieceType(move),
+        pieceColor(move),
+        isCapture(move),
+        isShortCastle(move),
+        isLongCastle(move));
+    unpacked.setPromotionPiece(promotionPiece(move));
+    return unpacked;
+  }
+
+  public static int encode(
+      int fromSquare,
+      int toSquare,
+      Chessboard.Piece pieceType,
+      Position.Turn pieceColor,
+      Chessboard.Piece capturedPiece,
+      boolean isMoveShortCastle,
+      boolean isMoveLongCastle) {
+    int move = fromSquare
+        | (toSquare << TO_SHIFT)
+        | (pieceType.ordinal() << PIECE_SHIFT)
+        | (capturedPiece.ordinal() << CAPTURED_SHIFT);
+    if (pieceColor == Position.Turn.BLACK) move |= COLOR_BIT;
+    if (isMoveShortCastle) move |= SHORT_CASTLE_BIT;
+    if (isMoveLongCastle) move |= LONG_CASTLE_BIT;
+    return move;
+  }
+
+  /**
+   * Returns the packed move turned into a promotion to the given piece.
+   */
+  public static int withPromotion(int move, Chessboard.Piece promotionPiece) {
+    return move | (promotionPiece.ordinal() << PROMOTION_SHIFT);
+  }
+
+  /**
+   * Returns the packed pawn capture marked as taking en passant. The captured pawn is recorded as
+   * usual, even though it does not stand on the target square.
+   */
+  public static int withEnPassant(int move) {
+    return move | EN_PASSANT_BIT;
+  }
+
+  public static int fromSquare(int move) {
+    return move & SQUARE_MASK;
+  }
+
+  public static int toSquare(int move) {
+    return (move >>> TO_SHIFT) & SQUARE_MASK;
+  }
+
+  public static Chessboard.Piece pieceType(int move) {
+    return PIECES[(move >>> PIECE_SHIFT) & PIECE_MASK];
+  }
+
+  public static Position.Turn pieceColor(int move) {
+    return (move & COLOR_BIT) != 0 ? Position.Turn.BLACK : Position.Turn.WHITE;
+  }
+
+  public static Chessboard.Piece capturedPiece(int move) {
+    return PIECES[(move >>> CAPTURED_SHIFT) & CAPTURED_MASK];
+  }
+
+  public static boolean isCapture(int move) {
+    return capturedPiece(move) != empty;
+  }
+
+  public static boolean isShortCastle(int move) {
+    return (move & SHORT_CASTLE_BIT) != 0;
+  }
+
+  public static boolean isLongCastle(int move) {
+    return (move & LONG_CASTLE_BIT) != 0;
+  }
+
+  public static boolean isCastle(int move) {
+    return (move & (SHORT_CASTLE_BIT | LONG_CASTLE_BIT)) != 0;
+  }
+
+  public static Chessboard.Piece promotionPiece(int move) {
+    int promotionPiece = (move >>> PROMOTION_SHIFT) & PROMOTION_MASK;
+    return promotionPiece == 0 ? empty : PIECES[promotionPiece];
+  }
+
+  public static boolean isPromotion(int move) {
+    return ((move >>> PROMOTION_SHIFT) & PROMOTION_MASK) != 0;
+  }
+
+  public static boolean isEnPassant(int move) {
+    return (move & EN_PASSANT_BIT) != 0;
+  }
 }
@@ -0,0 +1,66 @@
+package com.chessai.model;
+
+/**
+ * Fixed-capacity buffer of packed moves (see {@link Move#encode}). The search keeps one list per
+ * ply and clears it instead of allocating a new collection at every node. Each move has an
+ * ordering score alongside it, filled in by the search before the moves are tried.
+ */
+public class MoveList {
+
+  public static final int MAX_MOVES = 256;
+
+  private final int[] moves;
+  private final int[] scores;
+  private int size;
+
+  public MoveList() {
+    this.moves = new int[MAX_MOVES];
+    this.scores = new int[MAX_MOVES];
+    this.size = 0;
+  }
+
+  public void add(int move) {
+    moves[size++] = move;
+  }
+
+  public int get(int index) {
+    return moves[index];
+  }
+
+  public void set(int index, int move) {
+    moves[index] = move;
+  }
+
+  public int getScore(int index) {
+    return scores[index];
+  }
+
+  public void setScore(int index, int score) {
+    scores[index] = score;
+  }
+
+  /**
+   * Swaps two moves together with their scores.
+   */
+  public void swap(int first, int second) {
+    int move = moves[first];
+    moves[first] = moves[second];
+    moves[second] = move;
+
+    int score = scores[first];
+    scores[first] = scores[second];
+    scores[second] = score;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public void truncate(int size) {
+    this.size = size;
+  }
+
+  public void clear() {
+    size = 0;
+  }
+}
@@ -3,8 +3,6 @@ package com.chessai.model;
 import static com.chessai.util.EvaluationModule.boardEvaluation;
 
 import com.chessai.util.LegalMovesModule;
-import java.util.ArrayList;
-import java.util.List;
 
 public class Position {
 
@@ -15,31 +13,21 @@ public class Position {
 
   private Turn turn;
   private int score;
-  public List<Position> children;
-  public Move lastMove;
 
   public Chessboard board;
 
   public int legalMovesInThisPosition;
-  public boolean whiteKingHasMoved;
-  public boolean blackKingHasMoved;
 
   public Position() {
     this.score = 0;
     this.turn = Turn.WHITE;
-    this.lastMove = null;
-    this.children = new ArrayList<>();
     this.board = null;
     this.legalMovesInThisPosition = 0;
-    this.whiteKingHasMoved = false;
-    this.blackKingHasMoved = false;
   }
 
-  public Position(Turn turn, Chessboard board, Move lastMove) {
+  public Position(Turn turn, Chessboard board) {
     this.turn = turn;
     this.board = board;
-    this.children = new ArrayList<>();
-    this.lastMove = lastMove;
   }
 
   public Turn getTurn() {
@@ -65,7 +53,7 @@ public class Position {
 
 
 
-  public List<Move> getLegalMoves() {
-    return LegalMovesModule.getLegalMoves(this);
+  public void getLegalMoves(MoveList moves) {
+    LegalMovesModule.getLegalMoves(board, turn, moves);
   }
 }
@@ -0,0 +1,67 @@
+package com.chessai.search;
+
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs engine work off the servlet request threads. The pool and its queue are both bounded;
+ * once the queue is full new work is rejected straight away instead of piling up, so callers can
+ * tell the client to back off.
+ */
+@Service
+public class EngineExecutor {
+
+  private final ThreadPoolExecutor executor;
+
+  public EngineExecutor(
+      @Value("${chessai.engine.workers:1}") int workers,
+      @Value("${chessai.engine.queue-capacity:8}") int queueCapacity) {
+    this.executor = newBoundedPool(workers, queueCapacity, "engine-worker-");
+  }
+
+  // a fixed number of daemon workers behind a queue that rejects work once it is full
+  static ThreadPoolExecutor newBoundedPool(int workers, int queueCapacity, String threadNamePrefix) {
+    AtomicInteger workerNumber = new AtomicInteger();
+    return new ThreadPoolExecutor(
+        workers,
+        workers,
+        0L,
+        TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        runnable -> {
+          Thread thread = new Thread(runnable, threadNamePrefix + workerNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        },
+        new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  /**
+   * Queues the task on the engine pool.
+   *
+   * @throws RejectedExecutionException if the queue is full
+   */
+  public <T> CompletableFuture<T> submit(Supplier<T> task) {
+    return CompletableFuture.supplyAsync(task, executor);
+  }
+
+  /**
+   * Returns how many tasks the pool runs at once, e.g. to split work into as many parts.
+   */
+  public int getWorkers() {
+    return executor.getMaximumPoolSize();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,50 @@
+package com.chessai.search;
+
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs batch evaluations on a bounded pool of their own, so that a large batch never keeps a
+ * search waiting for the engine pool. Like {@link EngineExecutor}, it rejects new work once its
+ * queue is full.
+ */
+@Service
+public class EvaluationExecutor {
+
+  private final ThreadPoolExecutor executor;
+
+  public EvaluationExecutor(
+      @Value("${chessai.evaluation.workers:0}") int workers,
+      @Value("${chessai.evaluation.queue-capacity:16}") int queueCapacity) {
+    this.executor = EngineExecutor.newBoundedPool(
+        workers > 0 ? workers : Runtime.getRuntime().availableProcessors(),
+        queueCapacity,
+        "evaluation-worker-");
+  }
+
+  /**
+   * Queues the task on the evaluation pool.
+   *
+   * @throws RejectedExecutionException if the queue is full
+   */
+  public <T> CompletableFuture<T> submit(Supplier<T> task) {
+    return CompletableFuture.supplyAsync(task, executor);
+  }
+
+  /**
+   * Returns how many tasks the pool runs at once, e.g. to split work into as many parts.
+   */
+  public int getWorkers() {
+    return executor.getMaximumPoolSize();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+}
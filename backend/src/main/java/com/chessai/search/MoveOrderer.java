@@ -0,0 +1,139 @@
+package com.chessai.search;
+
+import com.chessai.model.Move;
+import com.chessai.model.MoveList;
+import com.chessai.model.Position.Turn;
+
+import java.util.Arrays;
+
+/**
+ * Scores moves so that the ones most likely to cause a cutoff are searched first: the move stored
+ * in the transposition table, then captures by most valuable victim / least valuable attacker,
+ * then the killer moves of the current ply, then the remaining quiet moves by history.
+ *
+ * Moves are not sorted up front. {@link #pickNextMove} selects the best of the remaining moves
+ * each time, which is cheaper when a cutoff comes after the first few moves.
+ */
+public class MoveOrderer {
+
+  private static final int HASH_MOVE_SCORE = 1 << 30;
+  private static final int CAPTURE_SCORE = 1 << 29;
+  private static final int FIRST_KILLER_SCORE = 1 << 28;
+  private static final int SECOND_KILLER_SCORE = FIRST_KILLER_SCORE - 1;
+
+  // history scores are halved once they grow this large, so they stay below the killer scores
+  private static final int MAX_HISTORY_SCORE = 1 << 20;
+
+  // indexed by piece ordinal: pawn, knight, bishop, rook, queen, king
+  private static final int[] PIECE_VALUES = {1, 3, 3, 5, 9, 100};
+
+  private final int[][] killers;
+  // indexed by color (0 white, 1 black), from square and to square
+  private final int[][][] history;
+
+  public MoveOrderer(int maxPly) {
+    this.killers = new int[maxPly][2];
+    this.history = new int[2][64][64];
+  }
+
+  /**
+   * Clears the killers, which belong to the previous position, and ages the history table so that
+   * recent cutoffs count for more than old ones.
+   */
+  public void newSearch() {
+    for (int[] plyKillers : killers) {
+      plyKillers[0] = Move.NONE;
+      plyKillers[1] = Move.NONE;
+    }
+    ageHistory();
+  }
+
+  /**
+   * Forgets the history table as well as the killers.
+   */
+  public void clear() {
+    newSearch();
+    for (int[][] colorHistory : history) {
+      for (int[] fromHistory : colorHistory) {
+        Arrays.fill(fromHistory, 0);
+      }
+    }
+  }
+
+  public void scoreMoves(MoveList moves, int hashMove, int ply) {
+    int[] plyKillers = killers[ply];
+    for (int i = 0; i < moves.size(); i++) {
+      int move = moves.get(i);
+      int score;
+      if (move == hashMove) {
+        score = HASH_MOVE_SCORE;
+      } else if (Move.isCapture(move)) {
+        score = CAPTURE_SCORE
+            + PIECE_VALUES[Move.capturedPiece(move).ordinal()] * 100
+            - PIECE_VALUES[Move.pieceType(move).ordinal()];
+      } else if (move == plyKillers[0]) {
+        score = FIRST_KILLER_SCORE;
+      } else if (move == plyKillers[1]) {
+        score = SECOND_KILLER_SCORE;
+      } else {
+        score = history[colorIndex(move)][Move.fromSquare(move)][Move.toSquare(move)];
+      }
+      moves.setScore(i, score);
+    }
+  }
+
+  public boolean isKiller(int move, int ply) {
+    return move == killers[ply][0] || move == killers[ply][1];
+  }
+
+  /**
+   * Moves the highest scoring move among those from {@code index} onwards to {@code index} and
+   * returns it.
+   */
+  public int pickNextMove(MoveList moves, int index) {
+    int best = index;
+    for (int i = index + 1; i < moves.size(); i++) {
+      if (moves.getScore(i) > moves.getScore(best)) {
+        best = i;
+      }
+    }
+    moves.swap(index, best);
+    return moves.get(index);
+  }
+
+  /**
+   * Remembers a quiet move that caused a cutoff, both as a killer for sibling positions at the
+   * same ply and in the history table, weighted by the depth of the subtree it refuted.
+   */
+  public void recordCutoff(int move, int ply, int depth) {
+    if (Move.isCapture(move)) {
+      return;
+    }
+
+    int[] plyKillers = killers[ply];
+    if (plyKillers[0] != move) {
+      plyKillers[1] = plyKillers[0];
+      plyKillers[0] = move;
+    }
+
+    int[] fromHistory = history[colorIndex(move)][Move.fromSquare(move)];
+    fromHistory[Move.toSquare(move)] += depth * depth;
+    if (fromHistory[Move.toSquare(move)] > MAX_HISTORY_SCORE) {
+      ageHistory();
+    }
+  }
+
+  private void ageHistory() {
+    for (int[][] colorHistory : history) {
+      for (int[] fromHistory : colorHistory) {
+        for (int to = 0; to < 64; to++) {
+          fromHistory[to] >>= 1;
+        }
+      }
+    }
+  }
+
+  private static int colorIndex(int move) {
+    return Move.pieceColor(move) == Turn.WHITE ? 0 : 1;
+  }
+}
@@ -0,0 +1,57 @@
+package com.chessai.search;
+
+import com.chessai.model.Chessboard;
+import com.chessai.model.MoveList;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Everything one search thread mutates while it searches: its own copy of the board, a move
+ * buffer and principal variation per ply, move ordering tables and node counter. All of it is
+ * allocated up front, so a search does not grow the heap however many nodes it visits. Threads
+ * only share the transposition table and the stop flag, so they never have to synchronize with
+ * each other.
+ */
+public class SearchContext {
+
+  Chessboard board;
+  final MoveList[] moveLists;
+  final MoveOrderer moveOrderer;
+  final AtomicBoolean stopped;
+  // only the main thread reads the clock; helpers stop when it raises the stop flag
+  final boolean isMainThread;
+  long deadline;
+  // asked by the main thread whether to stop early; null until the first iteration has completed
+  SearchListener listener;
+  long nodes;
+  // triangular principal variation table: row ply holds the best line found from that ply on, of
+  // the length stored for the ply
+  final int[][] pvMoves;
+  final int[] pvLengths;
+
+  SearchContext(int maxPly, AtomicBoolean stopped, boolean isMainThread) {
+    this.moveLists = new MoveList[maxPly];
+    for (int ply = 0; ply < maxPly; ply++) {
+      moveLists[ply] = new MoveList();
+    }
+    // one extra row, so that the deepest ply can read the empty line of the ply below it
+    this.pvMoves = new int[maxPly + 1][maxPly + 1];
+    this.pvLengths = new int[maxPly + 1];
+    this.moveOrderer = new MoveOrderer(maxPly);
+    this.stopped = stopped;
+    this.isMainThread = isMainThread;
+    this.deadline = Long.MAX_VALUE;
+    this.nodes = 0;
+  }
+
+  /**
+   * Prepares the context for a new search of the given board, which it takes ownership of.
+   */
+  void reset(Chessboard board, long deadline) {
+    this.board = board;
+    this.deadline = deadline;
+    this.listener = null;
+    this.nodes = 0;
+    moveOrderer.newSearch();
+  }
+}
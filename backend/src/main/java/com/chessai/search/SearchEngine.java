@@ -0,0 +1,543 @@
+package com.chessai.search;
+
+import com.chessai.model.Chessboard;
+import com.chessai.model.Move;
+import com.chessai.model.MoveList;
+import com.chessai.model.Position.Turn;
+import com.chessai.util.EvaluationModule;
+import com.chessai.util.LegalMovesModule;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Time-budgeted iterative deepening negamax search, parallelized with Lazy SMP: helper threads
+ * run the same search on their own copy of the board and only cooperate through the shared
+ * transposition table, so the main thread finds more of its subtrees already searched. The main
+ * thread alone decides the move.
+ */
+@Service
+public class SearchEngine {
+
+  public static final int MAX_PLY = 64;
+  public static final int MATE_SCORE = 1_000_000;
+
+  private static final int MAX_DEPTH = MAX_PLY - 1;
+  // how many nodes are searched between two looks at the clock
+  private static final int TIME_CHECK_INTERVAL = 1024;
+  private static final int INFINITY = 2_000_000;
+  private static final int MATE_THRESHOLD = MATE_SCORE - MAX_PLY;
+  // iterations from this depth on search the root with a window around the previous score, which
+  // is widened on a fail low or high; shallower scores are too unstable to be worth it
+  private static final int ASPIRATION_MIN_DEPTH = 4;
+  private static final int ASPIRATION_WINDOW = EvaluationModule.getPieceValue(Chessboard.Piece.pawn) / 4;
+  // null-move pruning is tried from this depth on, searching the null move this much shallower
+  // (one ply more from NULL_MOVE_DEEP_DEPTH on)
+  private static final int NULL_MOVE_MIN_DEPTH = 3;
+  private static final int NULL_MOVE_REDUCTION = 2;
+  private static final int NULL_MOVE_DEEP_DEPTH = 7;
+  // late move reductions apply to quiet moves from this index in the move order on, at this depth
+  // or more; the reduction is doubled for moves from LMR_DEEP_MOVE_INDEX at LMR_DEEP_DEPTH
+  private static final int LMR_MIN_MOVE_INDEX = 3;
+  private static final int LMR_MIN_DEPTH = 3;
+  private static final int LMR_DEEP_MOVE_INDEX = 6;
+  private static final int LMR_DEEP_DEPTH = 6;
+  // positional swing a capture may bring on top of the captured material before delta pruning
+  // gives up on it
+  private static final int DELTA_MARGIN = 2 * EvaluationModule.getPieceValue(Chessboard.Piece.pawn);
+
+  private final TranspositionTable transpositionTable;
+  private final long timeBudgetMs;
+  private final AtomicBoolean stopped = new AtomicBoolean();
+  // context 0 belongs to the calling thread, the others to the helper threads
+  private final SearchContext[] contexts;
+  private final ExecutorService helperPool;
+
+  public SearchEngine(
+      @Value("${chessai.transposition-table.size-mb:64}") int transpositionTableSizeMb,
+      @Value("${chessai.search.time-budget-ms:1000}") long timeBudgetMs,
+      @Value("${chessai.search.threads:0}") int threads) {
+    this.transpositionTable = new TranspositionTable(transpositionTableSizeMb);
+    this.timeBudgetMs = timeBudgetMs;
+
+    int threadCount = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    this.contexts = new SearchContext[threadCount];
+    for (int i = 0; i < threadCount; i++) {
+      contexts[i] = new SearchContext(MAX_PLY, stopped, i == 0);
+    }
+
+    AtomicInteger helperNumber = new AtomicInteger();
+    this.helperPool = threadCount > 1
+        ? Executors.newFixedThreadPool(threadCount - 1, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper-" + helperNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          })
+        : null;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (helperPool != null) {
+      helperPool.shutdownNow();
+    }
+  }
+
+  /**
+   * Searches the position until the time budget runs out and returns the best move found by the
+   * last completed iteration. The board is left unchanged. Searches are run one at a time since
+   * every search already occupies all of the search threads.
+   */
+  public SearchResult search(Chessboard board, Turn sideToMove) {
+    return search(board, sideToMove, null);
+  }
+
+  /**
+   * Like {@link #search(Chessboard, Turn)}, reporting each completed iteration to the listener.
+   */
+  public SearchResult search(Chessboard board, Turn sideToMove, SearchListener listener) {
+    return search(board, sideToMove, listener, timeBudgetMs);
+  }
+
+  /**
+   * Like {@link #search(Chessboard, Turn, SearchListener)}, with a time budget other than the
+   * configured one.
+   */
+  public synchronized SearchResult search(
+      Chessboard board,
+      Turn sideToMove,
+      SearchListener listener,
+      long timeBudgetMs) {
+    long startTime = System.currentTimeMillis();
+    long deadline = startTime + timeBudgetMs;
+    board.computeZobristKey(sideToMove);
+    transpositionTable.newSearch();
+    stopped.set(false);
+
+    List<Future<?>> helpers = new ArrayList<>();
+    for (int i = 1; i < contexts.length; i++) {
+      SearchContext helper = contexts[i];
+      helper.reset(new Chessboard(board), Long.MAX_VALUE);
+      // odd helpers start one ply deeper so that the threads do not all walk the tree in lockstep
+      int firstDepth = 1 + i % 2;
+      helpers.add(helperPool.submit(
+          () -> iterativeDeepening(helper, sideToMove, firstDepth, MAX_DEPTH, startTime, deadline, null)));
+    }
+
+    SearchContext main = contexts[0];
+    // the first iteration always runs to completion so that there is a move to play
+    main.reset(new Chessboard(board), Long.MAX_VALUE);
+    SearchResult result = iterativeDeepening(main, sideToMove, 1, MAX_DEPTH, startTime, deadline, listener);
+
+    stopped.set(true);
+    for (Future<?> helper : helpers) {
+      try {
+        helper.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Search helper thread failed", e.getCause());
+      }
+    }
+
+    return new SearchResult(result.getScore(), result.getDepth(), getTotalNodes(), result.getPrincipalVariation());
+  }
+
+  /**
+   * Forgets everything learned by earlier searches, the transposition table and the move ordering
+   * history, e.g. after searches of unrelated positions.
+   */
+  public synchronized void clear() {
+    transpositionTable.clear();
+    for (SearchContext context : contexts) {
+      context.moveOrderer.clear();
+    }
+  }
+
+  /**
+   * Searches the position to the given depth on the calling thread alone and without a time
+   * limit, so that the same position always costs the same amount of work. Meant for benchmarks
+   * and tests rather than play.
+   */
+  public synchronized SearchResult searchToDepth(Chessboard board, Turn sideToMove, int depth) {
+    board.computeZobristKey(sideToMove);
+    transpositionTable.newSearch();
+    stopped.set(false);
+
+    SearchContext main = contexts[0];
+    main.reset(new Chessboard(board), Long.MAX_VALUE);
+    return iterativeDeepening(
+        main,
+        sideToMove,
+        1,
+        Math.min(depth, MAX_DEPTH),
+        System.currentTimeMillis(),
+        Long.MAX_VALUE,
+        null);
+  }
+
+  // the helpers' counters are read without synchronization while they are still searching, which
+  // is accurate enough for progress reports
+  private long getTotalNodes() {
+    long nodes = 0;
+    for (SearchContext context : contexts) {
+      nodes += context.nodes;
+    }
+    return nodes;
+  }
+
+  // search one ply deeper at a time until the deadline passes; each iteration starts with the
+  // previous best move, which the transposition table hands back at the root
+  private SearchResult iterativeDeepening(
+      SearchContext context,
+      Turn sideToMove,
+      int firstDepth,
+      int maxDepth,
+      long startTime,
+      long deadline,
+      SearchListener listener) {
+    // scores are from the side to move's point of view inside the search and from white's outside
+    int whiteSign = sideToMove == Turn.WHITE ? 1 : -1;
+    int[] principalVariation = new int[0];
+    int bestScore = 0;
+    int completedDepth = 0;
+    for (int depth = firstDepth; depth <= maxDepth; depth++) {
+      int score = aspirationSearch(context, sideToMove, depth, bestScore);
+      if (context.stopped.get()) {
+        break;
+      }
+
+      // no legal moves at the root
+      if (context.pvLengths[0] == 0) {
+        break;
+      }
+
+      principalVariation = Arrays.copyOf(context.pvMoves[0], context.pvLengths[0]);
+      bestScore = score;
+      completedDepth = depth;
+      context.deadline = deadline;
+      context.listener = listener;
+
+      if (listener != null) {
+        listener.onIterationComplete(new SearchProgress(
+            depth,
+            whiteSign * score,
+            principalVariation,
+            getTotalNodes(),
+            System.currentTimeMillis() - startTime));
+        if (listener.isStopRequested()) {
+          break;
+        }
+      }
+
+      // a forced mate will not change with a deeper search
+      if (Math.abs(score) > MATE_THRESHOLD) {
+        break;
+      }
+    }
+    return new SearchResult(whiteSign * bestScore, completedDepth, context.nodes, principalVariation);
+  }
+
+  /**
+   * Searches the root to the given depth. Once the search is deep enough, the window is first
+   * narrowed around the previous iteration's score, since most moves can then be refuted with
+   * less work, and widened step by step for as long as the score falls outside it.
+   */
+  private int aspirationSearch(SearchContext context, Turn sideToMove, int depth, int previousScore) {
+    int alpha = -INFINITY;
+    int beta = INFINITY;
+    int delta = ASPIRATION_WINDOW;
+    if (depth >= ASPIRATION_MIN_DEPTH && Math.abs(previousScore) < MATE_THRESHOLD) {
+      alpha = previousScore - delta;
+      beta = previousScore + delta;
+    }
+
+    while (true) {
+      context.nodes++;
+      int score = negamax(context, sideToMove, depth, 0, alpha, beta, true);
+      if (context.stopped.get()) {
+        return score;
+      }
+
+      delta *= 2;
+      if (score <= alpha && alpha > -INFINITY) {
+        alpha = Math.max(score - delta, -INFINITY);
+      } else if (score >= beta && beta < INFINITY) {
+        beta = Math.min(score + delta, INFINITY);
+      } else {
+        return score;
+      }
+    }
+  }
+
+  /**
+   * Fail-soft negamax alpha-beta search of the context's board, scored from the point of view of
+   * the side to move. Moves are made and taken back on the one board, and everything else a node
+   * needs lives in the context's per-ply arrays, so a search allocates nothing however many nodes
+   * it visits.
+   */
+  private int negamax(
+      SearchContext context,
+      Turn sideToMove,
+      int depth,
+      int ply,
+      int alpha,
+      int beta,
+      boolean isNullMoveAllowed) {
+    context.pvLengths[ply] = 0;
+    if (depth <= 0) {
+      return quiescence(context, sideToMove, ply, alpha, beta);
+    }
+
+    if (isOutOfTime(context)) {
+      return 0;
+    }
+
+    Chessboard board = context.board;
+    long key = board.getZobristKey();
+    int hashMove = Move.NONE;
+    long entry = transpositionTable.probe(key);
+    if (entry != TranspositionTable.NO_ENTRY) {
+      hashMove = TranspositionTable.getMove(entry);
+      // the root is always searched so that it has a best move and principal variation
+      if (ply > 0 && TranspositionTable.getDepth(entry) >= depth) {
+        int entryScore = scoreFromTable(TranspositionTable.getScore(entry), ply);
+        int bound = TranspositionTable.getBound(entry);
+        if (bound == TranspositionTable.EXACT
+            || (bound == TranspositionTable.LOWER_BOUND && entryScore >= beta)
+            || (bound == TranspositionTable.UPPER_BOUND && entryScore <= alpha)) {
+          return entryScore;
+        }
+      }
+    }
+
+    Turn opponent = sideToMove == Turn.WHITE ? Turn.BLACK : Turn.WHITE;
+    boolean inCheck = LegalMovesModule.isKingInCheck(board, sideToMove);
+
+    // null-move pruning: if the side to move is still winning by enough after passing, a real
+    // move would surely be too, so the node is cut off after a reduced-depth search. It is only
+    // tried in null-window nodes, never twice in a row and not with only pawns left, where
+    // passing may be the best move there is (zugzwang).
+    if (ply > 0
+        && depth >= NULL_MOVE_MIN_DEPTH
+        && beta - alpha == 1
+        && !inCheck
+        && isNullMoveAllowed
+        && hasPiecesBesidesPawns(board, sideToMove)
+        && evaluate(board, sideToMove) >= beta) {
+      int reduction = depth >= NULL_MOVE_DEEP_DEPTH ? NULL_MOVE_REDUCTION + 1 : NULL_MOVE_REDUCTION;
+      board.makeNullMove();
+      context.nodes++;
+      int nullMoveScore = -negamax(context, opponent, depth - 1 - reduction, ply + 1, -beta, -beta + 1, false);
+      board.unmakeMove();
+      if (context.stopped.get()) {
+        return 0;
+      }
+      // a mate found after passing proves nothing about the real moves, so only the bound is
+      // returned
+      if (nullMoveScore >= beta) {
+        return beta;
+      }
+    }
+
+    MoveList legalMoves = context.moveLists[ply];
+    LegalMovesModule.getLegalMoves(board, sideToMove, legalMoves);
+    if (legalMoves.size() == 0) {
+      // mates are scored by distance from the root so that the quickest mate is preferred
+      return inCheck ? -(MATE_SCORE - ply) : 0;
+    }
+
+    context.moveOrderer.scoreMoves(legalMoves, hashMove, ply);
+
+    int originalAlpha = alpha;
+    int bestScore = -INFINITY;
+    int bestMove = Move.NONE;
+    for (int i = 0; i < legalMoves.size(); i++) {
+      int move = context.moveOrderer.pickNextMove(legalMoves, i);
+      board.makeMove(move);
+      context.nodes++;
+      int score;
+      if (i == 0) {
+        score = -negamax(context, opponent, depth - 1, ply + 1, -beta, -alpha, true);
+      } else {
+        // late move reductions: quiet moves ordered this late rarely turn out best, so they are
+        // searched shallower first and only at full depth if they beat alpha after all
+        int reduction = 0;
+        if (i >= LMR_MIN_MOVE_INDEX
+            && depth >= LMR_MIN_DEPTH
+            && !inCheck
+            && !Move.isCapture(move)
+            && !Move.isPromotion(move)
+            && !context.moveOrderer.isKiller(move, ply)
+            && !LegalMovesModule.isKingInCheck(board, opponent)) {
+          reduction = i >= LMR_DEEP_MOVE_INDEX && depth >= LMR_DEEP_DEPTH ? 2 : 1;
+        }
+
+        // principal variation search: with good ordering the first move is the best, so the
+        // others are only searched with a null window to prove them worse, and searched again
+        // with the full window if that fails
+        score = -negamax(context, opponent, depth - 1 - reduction, ply + 1, -alpha - 1, -alpha, true);
+        if (reduction > 0 && !context.stopped.get() && score > alpha) {
+          score = -negamax(context, opponent, depth - 1, ply + 1, -alpha - 1, -alpha, true);
+        }
+        if (!context.stopped.get() && score > alpha && score < beta) {
+          score = -negamax(context, opponent, depth - 1, ply + 1, -beta, -alpha, true);
+        }
+      }
+      board.unmakeMove();
+      if (context.stopped.get()) {
+        // the subtree was cut short, so its score must not reach the table or the root
+        return 0;
+      }
+
+      if (score > bestScore) {
+        bestScore = score;
+        bestMove = move;
+        if (score > alpha) {
+          alpha = score;
+          updatePrincipalVariation(context, ply, move);
+          if (alpha >= beta) {
+            context.moveOrderer.recordCutoff(move, ply, depth);
+            break;
+          }
+        }
+      }
+    }
+
+    int bound;
+    if (bestScore <= originalAlpha) {
+      bound = TranspositionTable.UPPER_BOUND;
+    } else if (bestScore >= beta) {
+      bound = TranspositionTable.LOWER_BOUND;
+    } else {
+      bound = TranspositionTable.EXACT;
+    }
+    transpositionTable.store(key, bestMove, scoreToTable(bestScore, ply), depth, bound);
+    return bestScore;
+  }
+
+  /**
+   * Searches captures only until the position is quiet, so that the evaluation is never taken in
+   * the middle of an exchange. The side to move may always decline to capture, so the static
+   * evaluation (stand pat) bounds the score.
+   */
+  private int quiescence(SearchContext context, Turn sideToMove, int ply, int alpha, int beta) {
+    context.pvLengths[ply] = 0;
+    Chessboard board = context.board;
+    int standPat = evaluate(board, sideToMove);
+    if (ply >= MAX_PLY - 1 || isOutOfTime(context)) {
+      return standPat;
+    }
+
+    if (standPat >= beta) {
+      return standPat;
+    }
+    alpha = Math.max(alpha, standPat);
+
+    int bestScore = standPat;
+    MoveList captures = context.moveLists[ply];
+    LegalMovesModule.getLegalCaptures(board, sideToMove, captures);
+    context.moveOrderer.scoreMoves(captures, Move.NONE, ply);
+    Turn opponent = sideToMove == Turn.WHITE ? Turn.BLACK : Turn.WHITE;
+
+    for (int i = 0; i < captures.size(); i++) {
+      int capture = context.moveOrderer.pickNextMove(captures, i);
+
+      // delta pruning: skip captures that cannot bring the score back into the window even with
+      // a generous positional margin
+      int gain = EvaluationModule.getPieceValue(Move.capturedPiece(capture)) + DELTA_MARGIN;
+      if (Move.isPromotion(capture)) {
+        gain += EvaluationModule.getPieceValue(Move.promotionPiece(capture))
+            - EvaluationModule.getPieceValue(Chessboard.Piece.pawn);
+      }
+      if (standPat + gain <= alpha) {
+        continue;
+      }
+
+      board.makeMove(capture);
+      context.nodes++;
+      int score = -quiescence(context, opponent, ply + 1, -beta, -alpha);
+      board.unmakeMove();
+      if (context.stopped.get()) {
+        return 0;
+      }
+
+      if (score > bestScore) {
+        bestScore = score;
+        if (score > alpha) {
+          alpha = score;
+          if (alpha >= beta) {
+            break;
+          }
+        }
+      }
+    }
+    return bestScore;
+  }
+
+  // the principal variation of a node is its best move followed by that of the child it leads to
+  private static void updatePrincipalVariation(SearchContext context, int ply, int move) {
+    int[] principalVariation = context.pvMoves[ply];
+    int childLength = context.pvLengths[ply + 1];
+    principalVariation[0] = move;
+    System.arraycopy(context.pvMoves[ply + 1], 0, principalVariation, 1, childLength);
+    context.pvLengths[ply] = childLength + 1;
+  }
+
+  private static int evaluate(Chessboard board, Turn sideToMove) {
+    int score = EvaluationModule.boardEvaluation(board);
+    return sideToMove == Turn.WHITE ? score : -score;
+  }
+
+  private static boolean hasPiecesBesidesPawns(Chessboard board, Turn turn) {
+    long pawnsAndKing = board.getBitboard(Chessboard.Piece.pawn) | board.getBitboard(Chessboard.Piece.king);
+    return (board.getColorBitboard(turn) & ~pawnsAndKing) != 0;
+  }
+
+  /**
+   * Aborts the search once the time budget has run out or the listener asks it to stop. Both are
+   * only checked by the main thread and only every {@link #TIME_CHECK_INTERVAL} nodes since the
+   * clock is comparatively slow to read; the helpers just watch the stop flag.
+   */
+  private static boolean isOutOfTime(SearchContext context) {
+    if (context.isMainThread && context.nodes % TIME_CHECK_INTERVAL == 0
+        && (System.currentTimeMillis() >= context.deadline
+            || context.listener != null && context.listener.isStopRequested())) {
+      context.stopped.set(true);
+    }
+    return context.stopped.get();
+  }
+
+  // mate scores are stored relative to the node rather than the root, since the same position
+  // can be reached at different plies
+  private static int scoreToTable(int score, int ply) {
+    if (score > MATE_THRESHOLD) {
+      return score + ply;
+    }
+    if (score < -MATE_THRESHOLD) {
+      return score - ply;
+    }
+    return score;
+  }
+
+  private static int scoreFromTable(int score, int ply) {
+    if (score > MATE_THRESHOLD) {
+      return score - ply;
+    }
+    if (score < -MATE_THRESHOLD) {
+      return score + ply;
+    }
+    return score;
+  }
+}
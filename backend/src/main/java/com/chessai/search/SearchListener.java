@@ -0,0 +1,20 @@
+package com.chessai.search;
+
+/**
+ * Receives progress from a running search. It is called on the main search thread once per
+ * completed iteration, so it should return quickly.
+ */
+@FunctionalInterface
+public interface SearchListener {
+
+  void onIterationComplete(SearchProgress progress);
+
+  /**
+   * Whether the search should stop and play the best move of its last completed iteration, such
+   * as when nobody is waiting for the answer anymore. Asked on the main search thread between
+   * iterations and every few thousand nodes, never before the first iteration has completed.
+   */
+  default boolean isStopRequested() {
+    return false;
+  }
+}
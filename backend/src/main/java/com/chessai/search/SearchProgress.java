@@ -0,0 +1,50 @@
+package com.chessai.search;
+
+/**
+ * Snapshot of a search after one iterative deepening iteration. The principal variation is a
+ * list of packed moves starting with the best move; its score is from white's point of view.
+ */
+public class SearchProgress {
+
+  private final int depth;
+  private final int score;
+  private final int[] principalVariation;
+  private final long nodes;
+  private final long elapsedMs;
+
+  public SearchProgress(int depth, int score, int[] principalVariation, long nodes, long elapsedMs) {
+    this.depth = depth;
+    this.score = score;
+    this.principalVariation = principalVariation;
+    this.nodes = nodes;
+    this.elapsedMs = elapsedMs;
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+
+  public int getScore() {
+    return score;
+  }
+
+  public int getBestMove() {
+    return principalVariation[0];
+  }
+
+  public int[] getPrincipalVariation() {
+    return principalVariation;
+  }
+
+  public long getNodes() {
+    return nodes;
+  }
+
+  public long getElapsedMs() {
+    return elapsedMs;
+  }
+
+  public long getNodesPerSecond() {
+    return elapsedMs > 0 ? nodes * 1000 / elapsedMs : nodes;
+  }
+}
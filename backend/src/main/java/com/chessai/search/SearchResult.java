@@ -0,0 +1,46 @@
+package com.chessai.search;
+
+import com.chessai.model.Move;
+
+/**
+ * Outcome of a search: its score from white's point of view, the last fully searched depth, the
+ * number of nodes visited by all threads and the principal variation, a list of packed moves
+ * starting with the best move (empty if the side to move has no legal moves).
+ */
+public class SearchResult {
+
+  private final int score;
+  private final int depth;
+  private final long nodes;
+  private final int[] principalVariation;
+
+  public SearchResult(int score, int depth, long nodes, int[] principalVariation) {
+    this.score = score;
+    this.depth = depth;
+    this.nodes = nodes;
+    this.principalVariation = principalVariation;
+  }
+
+  /**
+   * Returns the packed best move, or {@link Move#NONE} if the side to move has no legal moves.
+   */
+  public int getBestMove() {
+    return principalVariation.length > 0 ? principalVariation[0] : Move.NONE;
+  }
+
+  public int getScore() {
+    return score;
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+
+  public long getNodes() {
+    return nodes;
+  }
+
+  public int[] getPrincipalVariation() {
+    return principalVariation;
+  }
+}
@@ -0,0 +1,136 @@
+package com.chessai.search;
+
+import com.chessai.model.Move;
+import java.util.Arrays;
+
+/**
+ * Fixed-size hash table of search results keyed by Zobrist hash. Each bucket holds two entries:
+ * the first is only replaced by a search at least as deep (or by any search once the entry is
+ * left over from an earlier move), the second is always replaced. Entries are stored in two
+ * primitive long arrays so the table never allocates after construction.
+ *
+ * The table is shared by all search threads without locking. Each slot stores the key XORed with
+ * the entry, so a slot that one thread read while another was half way through writing it no
+ * longer matches its key and is simply treated as a miss.
+ *
+ * Entry layout: bits 0-25 best move, 26-49 score (signed), 50-56 depth, 57-58 bound type,
+ * 59-63 search generation.
+ */
+public class TranspositionTable {
+
+  public static final int EXACT = 1;
+  public static final int LOWER_BOUND = 2;
+  public static final int UPPER_BOUND = 3;
+
+  public static final long NO_ENTRY = 0L;
+
+  private static final int ENTRY_BYTES = 2 * Long.BYTES;
+
+  private static final int MOVE_BITS = 26;
+  private static final int SCORE_SHIFT = 26;
+  private static final int SCORE_BITS = 24;
+  private static final int DEPTH_SHIFT = 50;
+  private static final int DEPTH_MASK = 0x7F;
+  private static final int BOUND_SHIFT = 57;
+  private static final int BOUND_MASK = 0x3;
+  private static final int GENERATION_SHIFT = 59;
+  private static final int GENERATION_MASK = 0x1F;
+
+  private final long[] keys;
+  private final long[] entries;
+  private final int bucketMask;
+  private volatile int generation;
+
+  public TranspositionTable(int sizeMb) {
+    long maxEntries = Math.max(2, ((long) sizeMb << 20) / ENTRY_BYTES);
+    int buckets = Integer.highestOneBit((int) Math.min(maxEntries / 2, 1 << 28));
+    this.keys = new long[buckets * 2];
+    this.entries = new long[buckets * 2];
+    this.bucketMask = buckets - 1;
+    this.generation = 0;
+  }
+
+  /**
+   * Marks the start of a new search, so entries from earlier searches become replaceable.
+   */
+  public void newSearch() {
+    generation = (generation + 1) & GENERATION_MASK;
+  }
+
+  public void clear() {
+    Arrays.fill(keys, 0L);
+    Arrays.fill(entries, NO_ENTRY);
+  }
+
+  /**
+   * Returns the packed entry stored for the key, or {@link #NO_ENTRY} if there is none.
+   */
+  public long probe(long key) {
+    int index = bucketIndex(key);
+    for (int slot = index; slot < index + 2; slot++) {
+      long entry = entries[slot];
+      if (entry != NO_ENTRY && (keys[slot] ^ entry) == key) {
+        return entry;
+      }
+    }
+    return NO_ENTRY;
+  }
+
+  public void store(long key, int move, int score, int depth, int bound) {
+    int index = bucketIndex(key);
+
+    long existing = entries[index];
+    boolean sameKey = (keys[index] ^ existing) == key;
+    boolean replaceDeepEntry = sameKey
+        || existing == NO_ENTRY
+        || getGeneration(existing) != generation
+        || depth >= getDepth(existing);
+    if (!replaceDeepEntry) {
+      index++;
+      existing = entries[index];
+      sameKey = (keys[index] ^ existing) == key;
+    }
+
+    // keep the previous best move if this search did not find one (e.g. it failed low)
+    if (move == Move.NONE && sameKey && existing != NO_ENTRY) {
+      move = getMove(existing);
+    }
+
+    long entry = pack(move, score, depth, bound);
+    keys[index] = key ^ entry;
+    entries[index] = entry;
+  }
+
+  public static int getMove(long entry) {
+    return (int) (entry & ((1L << MOVE_BITS) - 1));
+  }
+
+  public static int getScore(long entry) {
+    // shift the field to the top of the long and back to sign-extend it
+    return (int) ((entry << (64 - SCORE_SHIFT - SCORE_BITS)) >> (64 - SCORE_BITS));
+  }
+
+  public static int getDepth(long entry) {
+    return (int) ((entry >>> DEPTH_SHIFT) & DEPTH_MASK);
+  }
+
+  public static int getBound(long entry) {
+    return (int) ((entry >>> BOUND_SHIFT) & BOUND_MASK);
+  }
+
+  private static int getGeneration(long entry) {
+    return (int) ((entry >>> GENERATION_SHIFT) & GENERATION_MASK);
+  }
+
+  private long pack(int move, int score, int depth, int bound) {
+    return (move & ((1L << MOVE_BITS) - 1))
+        | ((score & ((1L << SCORE_BITS) - 1)) << SCORE_SHIFT)
+        | ((long) (depth & DEPTH_MASK) << DEPTH_SHIFT)
+        | ((long) bound << BOUND_SHIFT)
+        | ((long) generation << GENERATION_SHIFT);
+  }
+
+  private int bucketIndex(long key) {
+    return ((int) key & bucketMask) << 1;
+  }
+}
@@ -0,0 +1,49 @@
+package com.chessai.session;
+
+import com.chessai.model.Chessboard;
+
+/**
+ * State of one game against the engine that the client does not send with every move: the move
+ * number, which decides how long the opening book is followed, and the castling rights still
+ * available to each side. Requests for the same game are handled one at a time by synchronizing
+ * on the session.
+ */
+public class GameSession {
+
+  private final String gameId;
+  private int moveNumber;
+  private int castlingRights;
+
+  public GameSession(String gameId) {
+    this.gameId = gameId;
+    reset();
+  }
+
+  /**
+   * Starts the game over from the initial position.
+   */
+  public void reset() {
+    this.moveNumber = 1;
+    this.castlingRights = Chessboard.ALL_CASTLING;
+  }
+
+  public String getGameId() {
+    return gameId;
+  }
+
+  public int getMoveNumber() {
+    return moveNumber;
+  }
+
+  public void incrementMoveNumber() {
+    moveNumber++;
+  }
+
+  public int getCastlingRights() {
+    return castlingRights;
+  }
+
+  public void setCastlingRights(int castlingRights) {
+    this.castlingRights = castlingRights;
+  }
+}
@@ -0,0 +1,39 @@
+package com.chessai.session;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Game sessions by game id. The store is bounded and forgets games that have been idle for a
+ * while, so abandoned games do not accumulate.
+ */
+@Service
+public class GameSessionStore {
+
+  private final Cache<String, GameSession> sessions;
+
+  public GameSessionStore(
+      @Value("${chessai.sessions.max-size:10000}") long maxSize,
+      @Value("${chessai.sessions.idle-timeout-minutes:30}") long idleTimeoutMinutes) {
+    this.sessions = CacheBuilder.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterAccess(Duration.ofMinutes(idleTimeoutMinutes))
+        .build();
+  }
+
+  /**
+   * Returns the session for the game, starting a new one if the game is unknown or has expired.
+   */
+  public GameSession getOrCreate(String gameId) {
+    try {
+      return sessions.get(gameId, () -> new GameSession(gameId));
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Could not create session for game " + gameId, e.getCause());
+    }
+  }
+}
@@ -0,0 +1,249 @@
+package com.chessai.util;
+
+import com.chessai.model.Position.Turn;
+
+/**
+ * Precomputed attack tables. Knights, kings and pawns use a plain mask per square; the squares
+ * between and along two aligned squares are kept for pin and check-evasion tests. Sliding pieces
+ * use magic bitboards. For every square the relevant blockers are multiplied by a magic number
+ * and shifted down to index a table holding the attack set for that occupancy, so a rook or
+ * bishop attack lookup costs a mask, a multiply and a shift instead of walking each ray square
+ * by square.
+ *
+ * The magic numbers below were found offline by a trial-and-error search over sparse random
+ * candidates; only the attack tables themselves are built when the class is loaded.
+ */
+public class AttackTablesModule {
+    private static final int[] ROOK_DIRECTIONS = {8, -8, 1, -1};
+    private static final int[] BISHOP_DIRECTIONS = {9, 7, -7, -9};
+    private static final int[] KNIGHT_OFFSETS = {17, 15, 10, 6, -6, -10, -15, -17};
+    private static final int[] KING_OFFSETS = {9, 8, 7, 1, -1, -7, -8, -9};
+
+    private static final int WHITE = 0;
+    private static final int BLACK = 1;
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    private static final long[] ROOK_MAGICS = {
+            0x0080004000802018L, 0x5040004010002000L, 0x0100200010084102L, 0x3100081000050020L,
+            0x0700050008001082L, 0x2480140002008031L, 0x0400281209008410L, 0xA10004820149A100L,
+            0x0000800020804010L, 0x0000804000802000L, 0x0001001100402000L, 0x0860800800100080L,
+            0x8021000800050010L, 0x8641808052000400L, 0xB121000402000100L, 0x0401001040810012L,
+            0x0080004000200040L, 0x0001050028400082L, 0x4880410020061100L, 0x040221001001000AL,
+            0x0004008004080081L, 0x100A010100040008L, 0x00044B0100040200L, 0x0050060000804904L,
+            0x0040005880008020L, 0x0040400040201000L, 0x0104410900200010L, 0x4082880280100080L,
+            0x8004040080080080L, 0x1020040080800200L, 0x5000500400420801L, 0x0000004200108401L,
+            0x0080002002400040L, 0x0200401000402000L, 0x3100802000801000L, 0x0060100080800800L,
+            0x0400110065000800L, 0x0808800400800200L, 0x4822020001010004L, 0x0029010042000084L,
+            0x8040002040808000L, 0x400050002000C003L, 0x001100200A410010L, 0x1400100100090020L,
+            0x4441004800050010L, 0x0000042040080110L, 0x400200884702000CL, 0x1000410040820004L,
+            0x000106C122008200L, 0x0800490822008200L, 0x0210110040200100L, 0x5010001008008080L,
+            0x2048008880040180L, 0x2103020080840080L, 0x0180025008018400L, 0x6849000152008700L,
+            0x6200104700228001L, 0x0040190082002042L, 0x800020000A40B103L, 0x0010100100080421L,
+            0x0002010420100802L, 0x0005004204004801L, 0x60010004020010A1L, 0x0000084028850402L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0x8040040104010012L, 0x6008101082104800L, 0x0210208081040240L, 0x808405021020C444L,
+            0x040C052000090100L, 0x5501100211080848L, 0x0840808C21600200L, 0x020984004E322000L,
+            0x008122045004A100L, 0x8050101002A58490L, 0x0000842904051000L, 0x0001020A06012040L,
+            0x0000820210020C00L, 0x0A08022804400200L, 0x0000040401041018L, 0x800100804130100AL,
+            0xAA0920A088014804L, 0xA1200002040410A0L, 0x02C4000808002008L, 0x000402084010A001L,
+            0x2002000400A24900L, 0x0040401808080420L, 0x180E040108110400L, 0x806D000820880440L,
+            0x0002104008101000L, 0x4C08200002820200L, 0x8808041142002200L, 0x8202080284004008L,
+            0x4211020004008400L, 0x0200404002011002L, 0x08040880A100F000L, 0x0009110000288808L,
+            0x81926020200428A0L, 0x0309245048023004L, 0x000242C811100960L, 0x0401420080880080L,
+            0x1010020080033005L, 0x0410010108021000L, 0x1004008C02020100L, 0x00040C0080104042L,
+            0x0D08088210480800L, 0x8401040104082100L, 0x9092220022005014L, 0x9004124012019040L,
+            0x8002041092008402L, 0x0060201200200210L, 0x0420020400411114L, 0x010C080220C42220L,
+            0x0042110442408045L, 0x0009040182830220L, 0x0008804044100080L, 0x5220000420880404L,
+            0x0840012004242000L, 0x00008404A8020CA8L, 0x0004200431020008L, 0x9042104112008002L,
+            0x0002008088082310L, 0x0204030082092141L, 0x0A00010100555000L, 0x0000000000841100L,
+            0x0504100020020480L, 0x0010080B22480201L, 0x0010456002023200L, 0x0011090A24004200L
+    };
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final long[] ROOK_ATTACKS;
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] BISHOP_ATTACKS;
+
+    static {
+        initLeaperTables();
+        initLineTables();
+        ROOK_ATTACKS = initSliderTables(ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS);
+        BISHOP_ATTACKS = initSliderTables(BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS);
+    }
+
+    public static long getKnightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long getKingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * Returns the squares a pawn of the given color standing on {@code square} attacks.
+     */
+    public static long getPawnAttacks(int square, Turn color) {
+        return PAWN_ATTACKS[color == Turn.WHITE ? WHITE : BLACK][square];
+    }
+
+    /**
+     * Returns the squares strictly between two squares on the same rank, file or diagonal, or an
+     * empty bitboard if they are not aligned.
+     */
+    public static long getBetween(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * Returns the full rank, file or diagonal through both squares, or an empty bitboard if they
+     * are not aligned.
+     */
+    public static long getLine(int from, int to) {
+        return LINE[from][to];
+    }
+
+    public static long getRookAttacks(int square, long occupied) {
+        int index = (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+        return ROOK_ATTACKS[ROOK_OFFSETS[square] + index];
+    }
+
+    public static long getBishopAttacks(int square, long occupied) {
+        int index = (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+        return BISHOP_ATTACKS[BISHOP_OFFSETS[square] + index];
+    }
+
+    public static long getQueenAttacks(int square, long occupied) {
+        return getRookAttacks(square, occupied) | getBishopAttacks(square, occupied);
+    }
+
+    private static void initLeaperTables() {
+        for (int square = 0; square < 64; square++) {
+            for (int offset : KNIGHT_OFFSETS) {
+                int target = square + offset;
+                // a knight jump moves at most two files sideways
+                if (target >= 0 && target < 64 && Math.abs((target & 7) - (square & 7)) <= 2) {
+                    KNIGHT_ATTACKS[square] |= 1L << target;
+                }
+            }
+            for (int offset : KING_OFFSETS) {
+                if (isStepOnBoard(square, offset)) {
+                    KING_ATTACKS[square] |= 1L << (square + offset);
+                }
+            }
+            if (isStepOnBoard(square, 7)) PAWN_ATTACKS[WHITE][square] |= 1L << (square + 7);
+            if (isStepOnBoard(square, 9)) PAWN_ATTACKS[WHITE][square] |= 1L << (square + 9);
+            if (isStepOnBoard(square, -7)) PAWN_ATTACKS[BLACK][square] |= 1L << (square - 7);
+            if (isStepOnBoard(square, -9)) PAWN_ATTACKS[BLACK][square] |= 1L << (square - 9);
+        }
+    }
+
+    private static void initLineTables() {
+        int[] directions = {8, -8, 1, -1, 9, 7, -7, -9};
+        for (int from = 0; from < 64; from++) {
+            for (int direction : directions) {
+                long ray = generateRay(from, direction);
+                long backwardRay = generateRay(from, -direction);
+
+                long between = 0L;
+                int current = from;
+                while (isStepOnBoard(current, direction)) {
+                    current += direction;
+                    BETWEEN[from][current] = between;
+                    LINE[from][current] = ray | backwardRay | (1L << from);
+                    between |= 1L << current;
+                }
+            }
+        }
+    }
+
+    private static long generateRay(int square, int direction) {
+        long ray = 0L;
+        int current = square;
+        while (isStepOnBoard(current, direction)) {
+            current += direction;
+            ray |= 1L << current;
+        }
+        return ray;
+    }
+
+    private static long[] initSliderTables(
+            int[] directions,
+            long[] masks,
+            long[] magics,
+            int[] shifts,
+            int[] offsets) {
+        int tableSize = 0;
+        for (int square = 0; square < 64; square++) {
+            masks[square] = generateRelevantOccupancyMask(square, directions);
+            shifts[square] = 64 - Long.bitCount(masks[square]);
+            offsets[square] = tableSize;
+            tableSize += 1 << Long.bitCount(masks[square]);
+        }
+
+        long[] table = new long[tableSize];
+        for (int square = 0; square < 64; square++) {
+            long mask = masks[square];
+
+            // enumerate every blocker configuration of the mask (carry-rippler)
+            long occupancy = 0L;
+            do {
+                int index = offsets[square] + (int) ((occupancy * magics[square]) >>> shifts[square]);
+                long attacks = generateSliderAttacks(square, occupancy, directions);
+                if (table[index] != 0L && table[index] != attacks) {
+                    throw new IllegalStateException("Magic number for square " + square + " is not collision free");
+                }
+                table[index] = attacks;
+                occupancy = (occupancy - mask) & mask;
+            } while (occupancy != 0);
+        }
+        return table;
+    }
+
+    private static long generateRelevantOccupancyMask(int square, int[] directions) {
+        long mask = 0L;
+        for (int direction : directions) {
+            int current = square;
+            // the last square of each ray never blocks anything beyond it, so it is not relevant
+            while (isStepOnBoard(current, direction) && isStepOnBoard(current + direction, direction)) {
+                current += direction;
+                mask |= 1L << current;
+            }
+        }
+        return mask;
+    }
+
+    private static long generateSliderAttacks(int square, long occupied, int[] directions) {
+        long attacks = 0L;
+        for (int direction : directions) {
+            int current = square;
+            while (isStepOnBoard(current, direction)) {
+                current += direction;
+                attacks |= 1L << current;
+                if ((occupied & (1L << current)) != 0) {
+                    break;
+                }
+            }
+        }
+        return attacks;
+    }
+
+    private static boolean isStepOnBoard(int square, int direction) {
+        int target = square + direction;
+        if (target < 0 || target > 63) {
+            return false;
+        }
+        // a step may move at most one file sideways; anything more means it wrapped around the board
+        return Math.abs((target & 7) - (square & 7)) <= 1;
+    }
+}
@@ -2,15 +2,17 @@ package com.chessai.util;
 
 import static com.chessai.util.BitboardUtilityModule.generateBitboardFromIndex;
 
-import java.util.List;
-
 import com.chessai.model.Chessboard;
 import com.chessai.model.Chessboard.Piece;
 import com.chessai.model.Move;
+import com.chessai.model.MoveList;
 import com.chessai.model.Position;
 import com.chessai.model.Position.Turn;
 
+import java.util.Arrays;
+
 public class ChessboardUtilityModule {
+    public static final String STARTING_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
     public static final long WHITE_SHORT_CASTLE_NEW_KING_POSITION = 0b0000000000000000000000000000000000000000000000000000000001010000L;
     public static final long WHITE_SHORT_CASTLE_NEW_ROOK_POSITION = 0b0000000000000000000000000000000000000000000000000000000010100000L;
     public static final long WHITE_LONG_CASTLE_NEW_KING_POSITION = 0b0000000000000000000000000000000000000000000000000000000000010100L;
@@ -72,51 +74,328 @@ public class ChessboardUtilityModule {
         };
     }
 
-    public static Move convertNotationToMove(Chessboard board, String moveNotation) {
-        if (moveNotation.equals("O-O")) {
-            return new Move(0, 0, Piece.king, Turn.BLACK, false, true, false);
-        } else if (moveNotation.equals("O-O-O")) {
-            return new Move(0, 0, Piece.king, Turn.BLACK, false, false, true);
+    /**
+     * Finds the legal move for the side to move that a move in standard algebraic notation (such
+     * as "e4", "exd5", "Nbd7", "R1e2", "e8=Q", "O-O" or "Qh4+") describes, returned as a packed move.
+     * Promotions are also accepted without the "=", as in "e8Q". Returns {@link Move#NONE} if no legal move matches or the notation is ambiguous.
+     */
+    public static int convertAlgebraicNotationToMove(Chessboard board, Turn turn, String moveNotation) {
+        String notation = moveNotation.replaceAll("[+#!?]", "");
+        MoveList legalMoves = new MoveList();
+        LegalMovesModule.getLegalMoves(board, turn, legalMoves);
+
+        if (notation.equals("O-O") || notation.equals("O-O-O")) {
+            boolean isShortCastle = notation.equals("O-O");
+            for (int i = 0; i < legalMoves.size(); i++) {
+                int move = legalMoves.get(i);
+                if (isShortCastle ? Move.isShortCastle(move) : Move.isLongCastle(move)) {
+                    return move;
+                }
+            }
+            return Move.NONE;
         }
 
-        Piece piece = null;
-        switch (moveNotation.charAt(0)) {
-            case 'N' -> piece = Chessboard.Piece.knight;
-            case 'B' -> piece = Chessboard.Piece.bishop;
-            case 'R' -> piece = Chessboard.Piece.rook;
-            case 'Q' -> piece = Chessboard.Piece.queen;
-            case 'K' -> piece = Chessboard.Piece.king;
-            default -> piece = Chessboard.Piece.pawn;
+        Piece promotionPiece = Piece.empty;
+        int promotionIndex = notation.indexOf('=');
+        if (promotionIndex < 0 && notation.length() >= 3 && "NBRQ".indexOf(notation.charAt(notation.length() - 1)) >= 0
+                && Character.isDigit(notation.charAt(notation.length() - 2))) {
+            // promotion written without the "=", as in "e8Q"
+            promotionPiece = getPieceTypeFromChar(notation.charAt(notation.length() - 1));
+            notation = notation.substring(0, notation.length() - 1);
+        } else if (promotionIndex >= 0) {
+            if (promotionIndex != notation.length() - 2) {
+                return Move.NONE;
+            }
+            promotionPiece = getPieceTypeFromChar(notation.charAt(promotionIndex + 1));
+            notation = notation.substring(0, promotionIndex);
         }
 
-        // get last two characters of move notation
-        String to = moveNotation.substring(moveNotation.length() - 2);
-        int toSquare = java.util.Arrays.asList(squares).indexOf(to);
-        boolean isCapture = moveNotation.contains("x");
+        if (notation.length() < 2 || promotionPiece == null) {
+            return Move.NONE;
+        }
 
-        List<Move> legalMoves = LegalMovesModule.getLegalMoves(new Position(Turn.BLACK, board, null));
-        for (Move move : legalMoves) {
-            if (piece == move.getPieceType() && toSquare == move.getToSquare() && isCapture == move.isCapture()) {
-                return move;
+        Piece piece = Piece.pawn;
+        int start = 0;
+        if ("NBRQK".indexOf(notation.charAt(0)) >= 0) {
+            piece = getPieceTypeFromChar(notation.charAt(0));
+            start = 1;
+        }
+
+        int toSquare = Arrays.asList(squares).indexOf(notation.substring(notation.length() - 2));
+        if (toSquare < 0) {
+            return Move.NONE;
+        }
+
+        // whatever is left between the piece and the target square disambiguates the origin
+        int fromFile = -1;
+        int fromRank = -1;
+        for (char c : notation.substring(start, notation.length() - 2).toCharArray()) {
+            if (c >= 'a' && c <= 'h') {
+                fromFile = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRank = c - '1';
             }
         }
 
-        return null;
+        int match = Move.NONE;
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int move = legalMoves.get(i);
+            int fromSquare = Move.fromSquare(move);
+            if (Move.pieceType(move) == piece && Move.toSquare(move) == toSquare && !Move.isCastle(move)
+                    && Move.promotionPiece(move) == promotionPiece
+                    && (fromFile < 0 || (fromSquare & 7) == fromFile)
+                    && (fromRank < 0 || (fromSquare >> 3) == fromRank)) {
+                if (match != Move.NONE) {
+                    return Move.NONE;
+                }
+                match = move;
+            }
+        }
+        return match;
     }
 
-    public static Position convertMoveToPosition(Move move, Position position) {
-        Turn newTurn = position.getTurn() == Turn.WHITE ? Turn.BLACK : Turn.WHITE;
-        Position childPos = new Position();
+    /**
+     * Writes a legal move for the side to move in standard algebraic notation, such as "Nbd7",
+     * "exd5", "e8=Q+" or "O-O#": the inverse of {@link #convertAlgebraicNotationToMove}.
+     */
+    public static String convertMoveToAlgebraicNotation(Chessboard board, Turn turn, int move) {
+        StringBuilder notation = new StringBuilder();
+        int fromSquare = Move.fromSquare(move);
+        Piece piece = Move.pieceType(move);
+        boolean isCapture = Move.isCapture(move) || Move.isEnPassant(move);
+        if (Move.isShortCastle(move)) {
+            notation.append("O-O");
+        } else if (Move.isLongCastle(move)) {
+            notation.append("O-O-O");
+        } else if (piece == Piece.pawn) {
+            if (isCapture) {
+                notation.append(squares[fromSquare].charAt(0));
+            }
+        } else {
+            notation.append(getPieceCharFromPieceType(piece));
+
+            // name the origin's file, rank or both if another piece of the same type can move there
+            MoveList legalMoves = new MoveList();
+            LegalMovesModule.getLegalMoves(board, turn, legalMoves);
+            boolean isAmbiguous = false;
+            boolean isFileShared = false;
+            boolean isRankShared = false;
+            for (int i = 0; i < legalMoves.size(); i++) {
+                int other = legalMoves.get(i);
+                int otherFromSquare = Move.fromSquare(other);
+                if (Move.pieceType(other) == piece && Move.toSquare(other) == Move.toSquare(move)
+                        && otherFromSquare != fromSquare) {
+                    isAmbiguous = true;
+                    isFileShared |= (otherFromSquare & 7) == (fromSquare & 7);
+                    isRankShared |= (otherFromSquare >> 3) == (fromSquare >> 3);
+                }
+            }
+            if (isAmbiguous && (!isFileShared || isRankShared)) {
+                notation.append(squares[fromSquare].charAt(0));
+            }
+            if (isFileShared) {
+                notation.append(squares[fromSquare].charAt(1));
+            }
+        }
 
-        childPos.setTurn(newTurn);
-        childPos.board = new Chessboard(position.board);
-        childPos.lastMove = move;
-        childPos.board.makeMove(move);
+        if (!Move.isCastle(move)) {
+            if (isCapture) {
+                notation.append('x');
+            }
+            notation.append(squares[Move.toSquare(move)]);
+            if (Move.isPromotion(move)) {
+                notation.append('=').append(getPieceCharFromPieceType(Move.promotionPiece(move)));
+            }
+        }
 
-        return childPos;
+        Turn opponent = turn == Turn.WHITE ? Turn.BLACK : Turn.WHITE;
+        board.makeMove(move);
+        if (LegalMovesModule.isKingInCheck(board, opponent)) {
+            MoveList replies = new MoveList();
+            LegalMovesModule.getLegalMoves(board, opponent, replies);
+            notation.append(replies.size() == 0 ? '#' : '+');
+        }
+        board.unmakeMove();
+        return notation.toString();
     }
 
+    /**
+     * Sets up the position described by a FEN string, such as
+     * "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1". The move counters are
+     * optional and ignored. Throws an {@link IllegalArgumentException} if the string is malformed,
+     * either side does not have exactly one king or the en passant square is not the empty square a
+     * pawn of the opponent just skipped by moving two squares from its empty starting square.
+     */
+    public static Position convertFenToPosition(String fen) {
+        if (fen == null) {
+            throw new IllegalArgumentException("FEN is missing");
+        }
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("FEN needs at least four fields: " + fen);
+        }
+
+        String[] boardArray = new String[64];
+        String[] ranks = fields[0].split("/");
+        if (ranks.length != 8) {
+            throw new IllegalArgumentException("FEN board needs eight ranks: " + fen);
+        }
+        for (int rank = 0; rank < 8; rank++) {
+            // FEN lists the ranks from the eighth down to the first
+            int square = (7 - rank) * 8;
+            int rankEnd = square + 8;
+            for (char c : ranks[rank].toCharArray()) {
+                if (c >= '1' && c <= '8') {
+                    for (int i = 0; i < c - '0' && square < rankEnd; i++) {
+                        boardArray[square++] = "";
+                    }
+                } else if (getPieceTypeFromChar(Character.toUpperCase(c)) != null && square < rankEnd) {
+                    boardArray[square++] = (Character.isUpperCase(c) ? "w" : "b") + Character.toUpperCase(c);
+                } else {
+                    throw new IllegalArgumentException("Invalid FEN rank " + ranks[rank] + ": " + fen);
+                }
+            }
+            if (square != rankEnd) {
+                throw new IllegalArgumentException("Invalid FEN rank " + ranks[rank] + ": " + fen);
+            }
+        }
+        Chessboard board;
+        try {
+            board = convertStringArrayToChessboard(boardArray);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(e.getMessage() + ": " + fen, e);
+        }
+
+        Turn turn = switch (fields[1]) {
+            case "w" -> Turn.WHITE;
+            case "b" -> Turn.BLACK;
+            default -> throw new IllegalArgumentException("Invalid FEN side to move: " + fen);
+        };
+
+        int castlingRights = 0;
+        if (!fields[2].equals("-")) {
+            for (char c : fields[2].toCharArray()) {
+                castlingRights |= switch (c) {
+                    case 'K' -> Chessboard.WHITE_SHORT_CASTLE;
+                    case 'Q' -> Chessboard.WHITE_LONG_CASTLE;
+                    case 'k' -> Chessboard.BLACK_SHORT_CASTLE;
+                    case 'q' -> Chessboard.BLACK_LONG_CASTLE;
+                    default -> throw new IllegalArgumentException("Invalid FEN castling rights: " + fen);
+                };
+            }
+        }
+        board.setCastlingRights(castlingRights);
+
+        if (!fields[3].equals("-")) {
+            int enPassantSquare = Arrays.asList(squares).indexOf(fields[3]);
+            // the square the opponent's pawn skipped, on the sixth rank if white is to move and on
+            // the third if black is; the pawn stands in front of it and its starting square behind
+            // it is empty again
+            int enPassantRank = turn == Turn.WHITE ? 5 : 2;
+            int pawnOffset = turn == Turn.WHITE ? -8 : 8;
+            String opponentPawn = turn == Turn.WHITE ? "bP" : "wP";
+            if (enPassantSquare < 0 || enPassantSquare >> 3 != enPassantRank
+                    || !boardArray[enPassantSquare].isEmpty()
+                    || !boardArray[enPassantSquare - pawnOffset].isEmpty()
+                    || !boardArray[enPassantSquare + pawnOffset].equals(opponentPawn)) {
+                throw new IllegalArgumentException("Invalid FEN en passant square: " + fen);
+            }
+            board.setEnPassantSquare(enPassantSquare);
+        }
+
+        board.computeZobristKey(turn);
+        return new Position(turn, board);
+    }
+
+    /**
+     * Writes the position as a FEN string. The move counters are not tracked and are always
+     * written as "0 1".
+     */
+    public static String convertChessboardToFen(Chessboard board, Turn turn) {
+        StringBuilder fen = new StringBuilder();
+        for (int rank = 7; rank >= 0; rank--) {
+            int emptySquares = 0;
+            for (int file = 0; file < 8; file++) {
+                int square = rank * 8 + file;
+                Piece piece = board.getPieceOn(square);
+                if (piece == Piece.empty) {
+                    emptySquares++;
+                    continue;
+                }
+                if (emptySquares > 0) {
+                    fen.append(emptySquares);
+                    emptySquares = 0;
+                }
+                char pieceChar = piece == Piece.pawn ? 'P' : getPieceCharFromPieceType(piece).charAt(0);
+                boolean isWhite = (board.getBitboard(Piece.white) & (1L << square)) != 0;
+                fen.append(isWhite ? pieceChar : Character.toLowerCase(pieceChar));
+            }
+            if (emptySquares > 0) {
+                fen.append(emptySquares);
+            }
+            if (rank > 0) {
+                fen.append('/');
+            }
+        }
+
+        fen.append(turn == Turn.WHITE ? " w " : " b ");
+
+        int castlingRights = board.getCastlingRights();
+        if (castlingRights == 0) {
+            fen.append('-');
+        } else {
+            if (board.canCastle(Chessboard.WHITE_SHORT_CASTLE)) fen.append('K');
+            if (board.canCastle(Chessboard.WHITE_LONG_CASTLE)) fen.append('Q');
+            if (board.canCastle(Chessboard.BLACK_SHORT_CASTLE)) fen.append('k');
+            if (board.canCastle(Chessboard.BLACK_LONG_CASTLE)) fen.append('q');
+        }
+
+        int enPassantSquare = board.getEnPassantSquare();
+        fen.append(' ').append(enPassantSquare == Chessboard.NO_EN_PASSANT ? "-" : squares[enPassantSquare]);
+        fen.append(" 0 1");
+        return fen.toString();
+    }
+
+    /**
+     * Writes a packed move in coordinate notation: the origin and target squares followed by the
+     * promotion piece, if any, such as "e2e4", "e1g1" for white's short castle or "e7e8q".
+     */
+    public static String convertMoveToCoordinateNotation(int move) {
+        String notation = squares[Move.fromSquare(move)] + squares[Move.toSquare(move)];
+        Piece promotionPiece = Move.promotionPiece(move);
+        if (promotionPiece != Piece.empty) {
+            notation += getPieceCharFromPieceType(promotionPiece).toLowerCase();
+        }
+        return notation;
+    }
+
+    /**
+     * Finds the legal move for the side to move written in coordinate notation (see
+     * {@link #convertMoveToCoordinateNotation}), returned as a packed move, or {@link Move#NONE} if
+     * there is no such legal move.
+     */
+    public static int convertCoordinateNotationToMove(Chessboard board, Turn turn, String moveNotation) {
+        MoveList legalMoves = new MoveList();
+        LegalMovesModule.getLegalMoves(board, turn, legalMoves);
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int move = legalMoves.get(i);
+            if (convertMoveToCoordinateNotation(move).equals(moveNotation)) {
+                return move;
+            }
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * Builds a board from 64 squares from a1 to h8, each empty or a color and piece such as "wK".
+     *
+     * @throws IllegalArgumentException if the array is not a valid board or either side does not
+     *     have exactly one king
+     */
     public static Chessboard convertStringArrayToChessboard(String[] boardArray) {
+        if (boardArray == null || boardArray.length != 64) {
+            throw new IllegalArgumentException("A board must have 64 squares");
+        }
         Chessboard board = new Chessboard();
         long whitePieces = 0L;
         long blackPieces = 0L;
@@ -126,19 +405,29 @@ public class ChessboardUtilityModule {
             if (piece == null || piece.trim().isEmpty()) {
                 continue;
             }
-            Chessboard.Piece pieceType = getPieceTypeFromChar(piece.charAt(1));
+            Chessboard.Piece pieceType = piece.length() == 2 ? getPieceTypeFromChar(piece.charAt(1)) : null;
+            if (pieceType == null || pieceType.ordinal() > Chessboard.Piece.king.ordinal()
+                    || (piece.charAt(0) != 'w' && piece.charAt(0) != 'b')) {
+                throw new IllegalArgumentException("Invalid piece " + piece + " on " + squares[i]);
+            }
             long bitboard = generateBitboardFromIndex(i);
             if (piece.charAt(0) == 'w') {
                 whitePieces |= bitboard;
             } else {
                 blackPieces |= bitboard;
             }
-            board.bitboards.put(pieceType, board.bitboards.get(pieceType) | bitboard);
+            board.setBitboard(pieceType, board.getBitboard(pieceType) | bitboard);
+        }
+
+        // move generation assumes both kings are on the board
+        long kings = board.getBitboard(Chessboard.Piece.king);
+        if (Long.bitCount(kings & whitePieces) != 1 || Long.bitCount(kings & blackPieces) != 1) {
+            throw new IllegalArgumentException("A board needs exactly one king per side");
         }
 
-        board.bitboards.put(Chessboard.Piece.white, whitePieces);
-        board.bitboards.put(Chessboard.Piece.black, blackPieces);
-        board.bitboards.put(Chessboard.Piece.empty, ~(whitePieces | blackPieces));
+        board.setBitboard(Chessboard.Piece.white, whitePieces);
+        board.setBitboard(Chessboard.Piece.black, blackPieces);
+        board.setBitboard(Chessboard.Piece.empty, ~(whitePieces | blackPieces));
 
         return board;
     }
@@ -148,32 +437,32 @@ public class ChessboardUtilityModule {
 
         for (int i = 0; i < 64; i++) {
             long bitboard = generateBitboardFromIndex(i);
-            if ((board.bitboards.get(Chessboard.Piece.white) & bitboard) != 0) {
-                if ((board.bitboards.get(Chessboard.Piece.pawn) & bitboard) != 0) {
+            if ((board.getBitboard(Chessboard.Piece.white) & bitboard) != 0) {
+                if ((board.getBitboard(Chessboard.Piece.pawn) & bitboard) != 0) {
                     boardArray[i] = "wP";
-                } else if ((board.bitboards.get(Chessboard.Piece.knight) & bitboard) != 0) {
+                } else if ((board.getBitboard(Chessboard.Piece.knight) & bitboard) != 0) {
                     boardArray[i] = "wN";
-                } else if ((board.bitboards.get(Chessboard.Piece.bishop) & bitboard) != 0) {
+                } else if ((board.getBitboard(Chessboard.Piece.bishop) & bitboard) != 0) {
                     boardArray[i] = "wB";
-                } else if ((board.bitboards.get(Chessboard.Piece.rook) & bitboard) != 0) {
+                } else if ((board.getBitboard(Chessboard.Piece.rook) & bitboard) != 0) {
                     boardArray[i] = "wR";
-                } else if ((board.bitboards.get(Chessboard.Piece.queen) & bitboard) != 0) {
+                } else if ((board.getBitboard(Chessboard.Piece.queen) & bitboard) != 0) {
                     boardArray[i] = "wQ";
-                } else if ((board.bitboards.get(Chessboard.Piece.king) & bitboard) != 0) {
+                } else if ((board.getBitboard(Chessboard.Piece.king) & bitboard) != 0) {
                     boardArray[i] = "wK";
                 }
-            } else if ((board.bitboards.get(Chessboard.Piece.black) & bitboard) != 0) {
-                if ((board.bitboards.get(Chessboard.Piece.pawn) & bitboard) != 0) {
+            } else if ((board.getBitboard(Chessboard.Piece.black) & bitboard) != 0) {
+                if ((board.getBitboard(Chessboard.Piece.pawn) & bitboard) != 0) {
                     boardArray[i] = "bP";
-                } else if ((board.bitboards.get(Chessboard.Piece.knight) & bitboard) != 0) {
+                } else if ((board.getBitboard(Chessboard.Piece.knight) & bitboard) != 0) {
                     boardArray[i] = "bN";
-                } else if ((board.bitboards.get(Chessboard.Piece.bishop) & bitboard) != 0) {
+                } else if ((board.getBitboard(Chessboard.Piece.bishop) & bitboard) != 0) {
                     boardArray[i] = "bB";
-                } else if ((board.bitboards.get(Chessboard.Piece.rook) & bitboard) != 0) {
+                } else if ((board.getBitboard(Chessboard.Piece.rook) & bitboard) != 0) {
                     boardArray[i] = "bR";
-                } else if ((board.bitboards.get(Chessboard.Piece.queen) & bitboard) != 0) {
+                } else if ((board.getBitboard(Chessboard.Piece.queen) & bitboard) != 0) {
                     boardArray[i] = "bQ";
-                } else if ((board.bitboards.get(Chessboard.Piece.king) & bitboard) != 0) {
+                } else if ((board.getBitboard(Chessboard.Piece.king) & bitboard) != 0) {
                     boardArray[i] = "bK";
                 }
             } else {
@@ -11,15 +11,24 @@ import com.chessai.model.Position.Turn;
 public class EvaluationModule {
 
     private static final int CENTER_CONTROL_BONUS = 5;
+    private static final int MATERIAL_WEIGHT = 10;
+    private static final int[] PIECE_VALUES = {100, 320, 330, 500, 900}; // pawn, knight, bishop, rook, queen
+    private static final Piece[] MATERIAL_PIECES = {pawn, knight, bishop, rook, queen};
 
     public static int boardEvaluation(Position position) {
+        return boardEvaluation(position.board);
+    }
+
+    /**
+     * Evaluates the board from white's point of view.
+     */
+    public static int boardEvaluation(Chessboard board) {
         int score = 0;
-        int pestoEval = PestoEval.eval(position.board);
+        int pestoEval = PestoEval.eval(board);
 
-        score += materialEval(position.board) * 10;
-        score += centerControlEval(position.board);
-//        score += mobilityEval(position);
-        score += developmentEval(position.board);
+        score += materialEval(board) * MATERIAL_WEIGHT;
+        score += centerControlEval(board);
+        score += developmentEval(board);
 
 
         score += pestoEval;
@@ -27,18 +36,23 @@ public class EvaluationModule {
         return score;
     }
 
+    /**
+     * Returns how much the material term of the evaluation changes when the piece is captured.
+     */
+    public static int getPieceValue(Piece piece) {
+        return piece.ordinal() < PIECE_VALUES.length ? PIECE_VALUES[piece.ordinal()] * MATERIAL_WEIGHT : 0;
+    }
+
     private static int materialEval(Chessboard board) {
-        int[] pieceValues = {100, 320, 330, 500, 900}; // pawn, knight, bishop, rook, queen
-        Piece[] types = new Piece[]{pawn, knight, bishop, rook, queen};
         int score = 0;
-        long whitePieces = board.bitboards.get(Piece.white);
-        long blackPieces = board.bitboards.get(Piece.black);
+        long whitePieces = board.getBitboard(Piece.white);
+        long blackPieces = board.getBitboard(Piece.black);
 
         // Compute material score
-        for (int i = 0; i < pieceValues.length; i++) {
-            long whitePiecesOfType = whitePieces & board.bitboards.get(types[i]);
-            long blackPiecesOfType = blackPieces & board.bitboards.get(types[i]);
-            score += pieceValues[i] *
+        for (int i = 0; i < PIECE_VALUES.length; i++) {
+            long whitePiecesOfType = whitePieces & board.getBitboard(MATERIAL_PIECES[i]);
+            long blackPiecesOfType = blackPieces & board.getBitboard(MATERIAL_PIECES[i]);
+            score += PIECE_VALUES[i] *
                     (Long.bitCount(whitePiecesOfType) - Long.bitCount(blackPiecesOfType));
         }
 
@@ -50,15 +64,15 @@ public class EvaluationModule {
     }
 
     private static int openFileUtilizationCheck(Chessboard board) {
-        long whiteRooks = board.bitboards.get(Piece.white) & board.bitboards.get(Piece.rook);
-        long blackRooks = board.bitboards.get(Piece.black) & board.bitboards.get(Piece.rook);
+        long whiteRooks = board.getBitboard(Piece.white) & board.getBitboard(Piece.rook);
+        long blackRooks = board.getBitboard(Piece.black) & board.getBitboard(Piece.rook);
 
         int score = 0;
 
         for (int i = 0; i < 8; i++) {
             long fileMask = generateFileMask(i);
-            long blackPiecesOnFile = board.bitboards.get(Piece.black) & fileMask;
-            long whitePiecesOnFile = board.bitboards.get(Piece.white) & fileMask;
+            long blackPiecesOnFile = board.getBitboard(Piece.black) & fileMask;
+            long whitePiecesOnFile = board.getBitboard(Piece.white) & fileMask;
             long whiteRooksOnFile = whiteRooks & fileMask;
             long blackRooksOnFile = blackRooks & fileMask;
             if (whiteRooksOnFile != 0 && bitCount(blackPiecesOnFile) < 3) {
@@ -89,8 +103,8 @@ public class EvaluationModule {
         int score = 0;
         long centerSquares = 0b0000000000000000000000000001100000011000000000000000000000000000L; // the four central
         // squares
-        long whitePieces = board.bitboards.get(Piece.white);
-        long blackPieces = board.bitboards.get(Piece.black);
+        long whitePieces = board.getBitboard(Piece.white);
+        long blackPieces = board.getBitboard(Piece.black);
 
         long whiteControl = whitePieces & centerSquares;
         int numWhiteControl = Long.bitCount(whiteControl);
@@ -109,10 +123,10 @@ public class EvaluationModule {
 
     private static int developmentEval(Chessboard board) {
         int score = 0;
-        long whiteKnights = board.bitboards.get(Piece.white) & board.bitboards.get(Piece.knight);
-        long blackKnights = board.bitboards.get(Piece.black) & board.bitboards.get(Piece.knight);
-        long whiteBishops = board.bitboards.get(Piece.white) & board.bitboards.get(Piece.bishop);
-        long blackBishops = board.bitboards.get(Piece.black) & board.bitboards.get(Piece.bishop);
+        long whiteKnights = board.getBitboard(Piece.white) & board.getBitboard(Piece.knight);
+        long blackKnights = board.getBitboard(Piece.black) & board.getBitboard(Piece.knight);
+        long whiteBishops = board.getBitboard(Piece.white) & board.getBitboard(Piece.bishop);
+        long blackBishops = board.getBitboard(Piece.black) & board.getBitboard(Piece.bishop);
 
         long whiteKnightOptimal = 0b0000000000000000000000000000000000000000001001000001100000000000L;
         long blackKnightOptimal = 0b000000000011000001001000000000000000000000000000000000000000000L;
@@ -1,916 +1,425 @@
 package com.chessai.util;
 
-import static com.chessai.util.BitboardUtilityModule.generateBitboardFromIndex;
-
 import com.chessai.model.Chessboard;
 import com.chessai.model.Chessboard.Piece;
 import com.chessai.model.Move;
-import com.chessai.model.Position;
+import com.chessai.model.MoveList;
 import com.chessai.model.Position.Turn;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
-
 public class LegalMovesModule {
     private static final long NOT_FILE_H = 0b0111111101111111011111110111111101111111011111110111111101111111L;
     private static final long NOT_FILE_A = 0b1111111011111110111111101111111011111110111111101111111011111110L;
-    private static final long NOT_FILE_G = 0b1011111110111111101111111011111110111111101111111011111110111111L;
-    private static final long NOT_FILE_B = 0b1111110111111101111111011111110111111101111111011111110111111101L;
-    private static final long NOT_RANK_1 = 0b1111111111111111111111111111111111111111111111111111111100000000L;
-    private static final long NOT_RANK_8 = 0b0000000011111111111111111111111111111111111111111111111111111111L;
-    private static final long whitePiecesObstructingShortCastling = 0b0000011000000000000000000000000000000000000000000000000000000000L;
-    private static final long whitePiecesObstructingLongCastling = 0b0111000000000000000000000000000000000000000000000000000000000000L;
-    private static final long blackPiecesObstructingShortCastling = 0b0000000000000000000000000000000000000000000000000000000000000110L;
-    private static final long blackPiecesObstructingLongCastling = 0b0000000000000000000000000000000000000000000000000000000001110000L;
-
-  public static List<Move> getLegalMoves(Position position) {
-        long king = position.board.bitboards.get(Piece.king) &
-                (position.getTurn() == Turn.WHITE
-                        ? position.board.bitboards.get(Piece.white)
-                        : position.board.bitboards.get(Piece.black));
-        int kingSquare = bitScan(king).get(0);
-
-        Turn turn = position.getTurn();
-        Chessboard board = position.board;
-        List<Move> moves = new LinkedList<>();
-        getLegalPawnMoves(turn, board, moves);
-        getLegalKnightMoves(turn, board, moves);
-        getLegalBishopMoves(turn, board, moves);
-        getLegalRookMoves(turn, board, moves);
-        getLegalQueenMoves(turn, board, moves);
-        getLegalKingMoves(turn, board, moves, position, position.whiteKingHasMoved, position.blackKingHasMoved);
-
-        List<Move> validMoves = new LinkedList<>();
-        for (Move move : moves) {
-            Chessboard tempBoard = new Chessboard(board);
-            tempBoard.makeMove(move);
-
-            if (!isKingInCheck(tempBoard, turn, kingSquare, position, position.whiteKingHasMoved, position.blackKingHasMoved)) {
-                validMoves.add(move);
+    private static final long RANK_1 = 0xFFL;
+    private static final long RANK_3 = 0xFFL << 16;
+    private static final long RANK_6 = 0xFFL << 40;
+    private static final long RANK_8 = 0xFFL << 56;
+    // strongest first, so that a queen promotion is tried before the others
+    private static final Piece[] PROMOTION_PIECES = {Piece.queen, Piece.rook, Piece.bishop, Piece.knight};
+    private static final long WHITE_SHORT_CASTLE_PATH = 0b01100000L;
+    private static final long WHITE_LONG_CASTLE_PATH = 0b00001110L;
+    private static final long BLACK_SHORT_CASTLE_PATH = WHITE_SHORT_CASTLE_PATH << 56;
+    private static final long BLACK_LONG_CASTLE_PATH = WHITE_LONG_CASTLE_PATH << 56;
+
+    /**
+     * Fills the given buffer with the legal moves for the side to move, encoded as packed ints.
+     */
+    public static void getLegalMoves(Chessboard board, Turn turn, MoveList moves) {
+        generateLegalMoves(board, turn, moves, false);
+    }
+
+    /**
+     * Fills the given buffer with only the legal captures for the side to move, for the
+     * quiescence search.
+     */
+    public static void getLegalCaptures(Chessboard board, Turn turn, MoveList moves) {
+        generateLegalMoves(board, turn, moves, true);
+    }
+
+    private static void generateLegalMoves(Chessboard board, Turn turn, MoveList moves, boolean capturesOnly) {
+        Turn opponent = turn == Turn.WHITE ? Turn.BLACK : Turn.WHITE;
+        int kingSquare = Long.numberOfTrailingZeros(board.getPieceBitboard(Piece.king, turn));
+        long occupied = ~board.getBitboard(Piece.empty);
+        long checkers = getAttackers(board, kingSquare, opponent, occupied);
+        long pinned = getPinnedPieces(board, kingSquare, turn, occupied);
+
+        // squares a non-king move has to land on: anywhere when not in check, the checker or the
+        // squares between it and the king in single check, and nowhere in double check
+        long evasionMask = -1L;
+        if (checkers != 0) {
+            evasionMask = Long.bitCount(checkers) > 1
+                    ? 0L
+                    : checkers | AttackTablesModule.getBetween(kingSquare, Long.numberOfTrailingZeros(checkers));
+        }
+
+        // squares a move may land on before the legality checks below
+        long targets = capturesOnly ? board.getColorBitboard(opponent) : ~board.getColorBitboard(turn);
+
+        moves.clear();
+        getLegalPawnMoves(turn, board, moves, capturesOnly);
+        getLegalKnightMoves(turn, board, moves, targets);
+        getLegalBishopMoves(turn, board, moves, targets);
+        getLegalRookMoves(turn, board, moves, targets);
+        getLegalQueenMoves(turn, board, moves, targets);
+        getLegalKingMoves(turn, board, moves, targets, !capturesOnly && checkers == 0);
+
+        // compact the pseudo-legal moves in place, keeping only the legal ones
+        int validMoves = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (Move.capturedPiece(move) == Piece.king) {
+                continue;
+            }
+
+            int fromSquare = Move.fromSquare(move);
+            long toMask = 1L << Move.toSquare(move);
+            boolean isLegal;
+            if (Move.isEnPassant(move)) {
+                // taking en passant empties two squares on the capturing pawn's rank, which may
+                // expose the king to a rook along it, so the resulting position is tested directly
+                long capturedMask = 1L << (turn == Turn.WHITE ? Move.toSquare(move) - 8 : Move.toSquare(move) + 8);
+                isLegal = getAttackers(
+                        board,
+                        kingSquare,
+                        opponent,
+                        (occupied ^ (1L << fromSquare) ^ capturedMask) | toMask) == 0;
+            } else if (Move.pieceType(move) == Piece.king) {
+                // castling was already checked for attacked squares when it was generated
+                isLegal = Move.isCastle(move) || getAttackers(
+                        board,
+                        Move.toSquare(move),
+                        opponent,
+                        occupied ^ (1L << fromSquare)) == 0;
+            } else {
+                isLegal = (toMask & evasionMask) != 0 &&
+                        ((pinned & (1L << fromSquare)) == 0 ||
+                                (AttackTablesModule.getLine(kingSquare, fromSquare) & toMask) != 0);
+            }
+
+            if (isLegal) {
+                moves.set(validMoves++, move);
             }
         }
+        moves.truncate(validMoves);
+    }
+
+    public static boolean isKingInCheck(Chessboard board, Turn turn) {
+        int kingSquare = Long.numberOfTrailingZeros(board.getPieceBitboard(Piece.king, turn));
+        return isSquareAttacked(board, kingSquare, turn == Turn.WHITE ? Turn.BLACK : Turn.WHITE);
+    }
+
+    public static boolean isSquareAttacked(Chessboard board, int square, Turn byColor) {
+        return getAttackers(board, square, byColor, ~board.getBitboard(Piece.empty)) != 0;
+    }
 
-        removePieceKingCaptureMoves(validMoves, board, turn);
+    /**
+     * Returns the pieces of the given color attacking the square, treating {@code occupied} as the
+     * set of blockers for sliding pieces.
+     */
+    private static long getAttackers(Chessboard board, int square, Turn byColor, long occupied) {
+        long attackingPieces = board.getColorBitboard(byColor) & occupied;
+        long diagonalSliders = board.getBitboard(Piece.bishop) | board.getBitboard(Piece.queen);
+        long straightSliders = board.getBitboard(Piece.rook) | board.getBitboard(Piece.queen);
+        // a pawn of the defending color on this square would attack exactly the attacking pawns
+        Turn defender = byColor == Turn.WHITE ? Turn.BLACK : Turn.WHITE;
+
+        return attackingPieces & (
+                (AttackTablesModule.getPawnAttacks(square, defender) & board.getBitboard(Piece.pawn)) |
+                (AttackTablesModule.getKnightAttacks(square) & board.getBitboard(Piece.knight)) |
+                (AttackTablesModule.getKingAttacks(square) & board.getBitboard(Piece.king)) |
+                (AttackTablesModule.getBishopAttacks(square, occupied) & diagonalSliders) |
+                (AttackTablesModule.getRookAttacks(square, occupied) & straightSliders));
+    }
 
-        return validMoves;
+    /**
+     * Returns the pieces of the given color that are the only blocker between their king and an
+     * enemy slider, and so may only move along that line.
+     */
+    private static long getPinnedPieces(Chessboard board, int kingSquare, Turn turn, long occupied) {
+        long ownPieces = board.getColorBitboard(turn);
+        long enemyPieces = board.getColorBitboard(turn == Turn.WHITE ? Turn.BLACK : Turn.WHITE);
+        long queens = board.getBitboard(Piece.queen);
+        long pinners = enemyPieces & (
+                (AttackTablesModule.getBishopAttacks(kingSquare, enemyPieces) & (board.getBitboard(Piece.bishop) | queens)) |
+                (AttackTablesModule.getRookAttacks(kingSquare, enemyPieces) & (board.getBitboard(Piece.rook) | queens)));
+
+        long pinned = 0L;
+        while (pinners != 0) {
+            int pinnerSquare = Long.numberOfTrailingZeros(pinners);
+            long blockers = AttackTablesModule.getBetween(kingSquare, pinnerSquare) & occupied;
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & ownPieces;
+            }
+            pinners &= pinners - 1;
+        }
+        return pinned;
     }
 
-    private static boolean isKingInCheck(
+    private static void addTargets(
+            MoveList moves,
             Chessboard board,
+            int fromSquare,
+            long targets,
+            Piece pieceType,
             Turn turn,
-            int kingSquare,
-            Position position,
-            boolean whiteKingHasMoved,
-            boolean blackKingHasMoved) {
-        Turn nextTurn = turn == Turn.WHITE ? Turn.BLACK : Turn.WHITE;
-        List<Move> moves = new LinkedList<>();
-        getLegalPawnMoves(nextTurn, board, moves);
-        getLegalKnightMoves(nextTurn, board, moves);
-        getLegalBishopMoves(nextTurn, board, moves);
-        getLegalRookMoves(nextTurn, board, moves);
-        getLegalQueenMoves(nextTurn, board, moves);
-        getLegalKingMoves(turn, board, moves, position, whiteKingHasMoved, blackKingHasMoved);
-        return moves.stream().anyMatch(move -> move.getToSquare() == kingSquare);
+            long enemyPieces) {
+        while (targets != 0) {
+            int targetSquare = Long.numberOfTrailingZeros(targets);
+            addMove(
+                    moves,
+                    board,
+                    fromSquare,
+                    targetSquare,
+                    pieceType,
+                    turn,
+                    (enemyPieces & (1L << targetSquare)) != 0,
+                    false,
+                    false);
+            targets &= targets - 1;
+        }
     }
 
-    private static void removePieceKingCaptureMoves(
-            List<Move> moves,
+    private static void addMove(
+            MoveList moves,
             Chessboard board,
-            Turn turn) {
-        long opponentKing = board.bitboards.get(Piece.king) &
-                (turn == Turn.WHITE
-                        ? board.bitboards.get(Piece.black)
-                        : board.bitboards.get(Piece.white));
-        int opponentKingSquare = bitScan(opponentKing).get(0);
-        moves.removeIf(move -> move.getToSquare() == opponentKingSquare);
+            int fromSquare,
+            int toSquare,
+            Piece pieceType,
+            Turn turn,
+            boolean isCapture,
+            boolean isMoveShortCastle,
+            boolean isMoveLongCastle) {
+        moves.add(
+                Move.encode(
+                        fromSquare,
+                        toSquare,
+                        pieceType,
+                        turn,
+                        isCapture ? board.getPieceOn(toSquare) : Piece.empty,
+                        isMoveShortCastle,
+                        isMoveLongCastle));
     }
 
     private static void getLegalPawnMoves(
             Turn turn,
             Chessboard board,
-            List<Move> moves) {
-        long pawns = board.bitboards.get(Piece.pawn) &
-                (turn == Turn.WHITE
-                        ? board.bitboards.get(Piece.white)
-                        : board.bitboards.get(Piece.black));
-        long emptySquares = board.bitboards.get(Piece.empty);
-        long enemyPieces = turn == Turn.WHITE
-                ? board.bitboards.get(Piece.black)
-                : board.bitboards.get(Piece.white);
-
-        List<Integer> squaresContainingPawns = bitScan(pawns);
-
-        for (int squareContainingPawn : squaresContainingPawns) {
-            boolean isIntermediateSquareClear = false;
-            boolean isPawnOnStartingRank = isPawnOnStartingRank(
-                    squareContainingPawn,
-                    turn);
-
-            long bitboardContainingSinglePawn = generateBitboardFromIndex(
-                    squareContainingPawn);
-            // move forward one square
-            if ((turn == Turn.WHITE &&
-                    (bitboardContainingSinglePawn << 8 & emptySquares) != 0b0) ||
-                    (turn == Turn.BLACK &&
-                            (bitboardContainingSinglePawn >> 8 & emptySquares) != 0b0)) {
-                isIntermediateSquareClear = true;
-                moves.add(
-                        new Move(
-                                squareContainingPawn,
-                                turn == Turn.WHITE
-                                        ? squareContainingPawn + 8
-                                        : squareContainingPawn - 8,
-                                Piece.pawn,
-                                turn,
-                                false,
-                                false,
-                                false));
-            }
-
-            // move forward two squares
-            if (isIntermediateSquareClear && isPawnOnStartingRank) {
-                if ((turn == Turn.WHITE &&
-                        (bitboardContainingSinglePawn << 16 & emptySquares) != 0b0) ||
-                        (turn == Turn.BLACK &&
-                                (bitboardContainingSinglePawn >> 16 & emptySquares) != 0b0)) {
-                    moves.add(
-                            new Move(
-                                    squareContainingPawn,
-                                    turn == Turn.WHITE
-                                            ? squareContainingPawn + 16
-                                            : squareContainingPawn - 16,
-                                    Piece.pawn,
-                                    turn,
-                                    false,
-                                    false,
-                                    false));
-                }
-            }
-
-            // capture to the left (for white, its +7, for black, its -9)
-            if ((turn == Turn.WHITE &&
-                    (bitboardContainingSinglePawn << 7 & NOT_FILE_H & enemyPieces) != 0b0) ||
-                    (turn == Turn.BLACK &&
-                            (bitboardContainingSinglePawn >> 9 & NOT_FILE_H & enemyPieces) != 0b0)) {
-                moves.add(
-                        new Move(
-                                squareContainingPawn,
-                                turn == Turn.WHITE
-                                        ? squareContainingPawn + 7
-                                        : squareContainingPawn - 9,
-                                Piece.pawn,
-                                turn,
-                                true,
-                                false,
-                                false));
-            }
-
-            // capture to the right (for white, its +9, for black, its -7)
-            if ((turn == Turn.WHITE &&
-                    (bitboardContainingSinglePawn << 9 & NOT_FILE_A & enemyPieces) != 0b0) ||
-                    (turn == Turn.BLACK &&
-                            (bitboardContainingSinglePawn >> 7 & NOT_FILE_A & enemyPieces) != 0b0)) {
-                moves.add(
-                        new Move(
-                                squareContainingPawn,
-                                turn == Turn.WHITE
-                                        ? squareContainingPawn + 9
-                                        : squareContainingPawn - 7,
-                                Piece.pawn,
-                                turn,
-                                true,
-                                false,
-                                false));
+            MoveList moves,
+            boolean capturesOnly) {
+        long pawns = board.getPieceBitboard(Piece.pawn, turn);
+        long emptySquares = board.getBitboard(Piece.empty);
+        Turn opponent = turn == Turn.WHITE ? Turn.BLACK : Turn.WHITE;
+        long enemyPieces = board.getColorBitboard(opponent);
+        boolean isWhite = turn == Turn.WHITE;
+        long promotionRank = isWhite ? RANK_8 : RANK_1;
+
+        // all pawns are moved at once; each offset below is how far a pawn travels up the board
+        // for white or down the board for black
+        int forward = isWhite ? 8 : -8;
+        int towardsFileA = isWhite ? 7 : -9;
+        int towardsFileH = isWhite ? 9 : -7;
+        long singlePushes = shift(pawns, forward) & emptySquares;
+        long doublePushes = shift(singlePushes & (isWhite ? RANK_3 : RANK_6), forward) & emptySquares;
+        long capturesTowardsFileA = shift(pawns & NOT_FILE_A, towardsFileA) & enemyPieces;
+        long capturesTowardsFileH = shift(pawns & NOT_FILE_H, towardsFileH) & enemyPieces;
+
+        if (!capturesOnly) {
+            addPawnMoves(moves, board, singlePushes & ~promotionRank, forward, turn, false);
+            addPawnMoves(moves, board, doublePushes, 2 * forward, turn, false);
+        }
+        addPawnMoves(moves, board, capturesTowardsFileA & ~promotionRank, towardsFileA, turn, true);
+        addPawnMoves(moves, board, capturesTowardsFileH & ~promotionRank, towardsFileH, turn, true);
+
+        // the quiescence search only looks at queen promotions, which win material like a capture
+        addPawnPromotions(moves, board, singlePushes & promotionRank, forward, turn, false, capturesOnly);
+        addPawnPromotions(moves, board, capturesTowardsFileA & promotionRank, towardsFileA, turn, true, capturesOnly);
+        addPawnPromotions(moves, board, capturesTowardsFileH & promotionRank, towardsFileH, turn, true, capturesOnly);
+
+        int enPassantSquare = board.getEnPassantSquare();
+        if (enPassantSquare != Chessboard.NO_EN_PASSANT) {
+            // the pawns that could capture on the square are those an enemy pawn there would attack
+            long capturers = pawns & AttackTablesModule.getPawnAttacks(enPassantSquare, opponent);
+            while (capturers != 0) {
+                int fromSquare = Long.numberOfTrailingZeros(capturers);
+                moves.add(Move.withEnPassant(
+                        Move.encode(fromSquare, enPassantSquare, Piece.pawn, turn, Piece.pawn, false, false)));
+                capturers &= capturers - 1;
             }
         }
     }
 
-    private static boolean isPawnOnStartingRank(
-            int squareContainingPawn,
-            Turn turn) {
-        return ((turn == Turn.WHITE &&
-                squareContainingPawn >= 8 &&
-                squareContainingPawn <= 15) ||
-                (turn == Turn.BLACK &&
-                        squareContainingPawn >= 48 &&
-                        squareContainingPawn <= 55));
+    private static void addPawnMoves(
+            MoveList moves,
+            Chessboard board,
+            long targets,
+            int offset,
+            Turn turn,
+            boolean isCapture) {
+        while (targets != 0) {
+            int toSquare = Long.numberOfTrailingZeros(targets);
+            addMove(moves, board, toSquare - offset, toSquare, Piece.pawn, turn, isCapture, false, false);
+            targets &= targets - 1;
+        }
     }
 
-    private static List<Integer> bitScan(long bitboard) {
-        List<Integer> indices = new ArrayList<>();
-        while (bitboard != 0) {
-            int index = Long.numberOfTrailingZeros(bitboard);
-            indices.add(index);
-            bitboard &= bitboard - 1;
+    private static void addPawnPromotions(
+            MoveList moves,
+            Chessboard board,
+            long targets,
+            int offset,
+            Turn turn,
+            boolean isCapture,
+            boolean queenOnly) {
+        while (targets != 0) {
+            int toSquare = Long.numberOfTrailingZeros(targets);
+            int move = Move.encode(
+                    toSquare - offset,
+                    toSquare,
+                    Piece.pawn,
+                    turn,
+                    isCapture ? board.getPieceOn(toSquare) : Piece.empty,
+                    false,
+                    false);
+            for (Piece promotionPiece : PROMOTION_PIECES) {
+                moves.add(Move.withPromotion(move, promotionPiece));
+                if (queenOnly) {
+                    break;
+                }
+            }
+            targets &= targets - 1;
         }
-        return indices;
+    }
+
+    private static long shift(long bitboard, int offset) {
+        return offset > 0 ? bitboard << offset : bitboard >>> -offset;
     }
 
     private static void getLegalKnightMoves(
             Turn turn,
             Chessboard board,
-            List<Move> moves) {
-        long knights = board.bitboards.get(Piece.knight) &
-                (turn == Turn.WHITE
-                        ? board.bitboards.get(Piece.white)
-                        : board.bitboards.get(Piece.black));
-
-        long emptySquares = board.bitboards.get(Piece.empty);
-        long enemyPieces = turn == Turn.WHITE
-                ? board.bitboards.get(Piece.black)
-                : board.bitboards.get(Piece.white);
-        long validSquares = emptySquares | enemyPieces;
-        boolean isCapture;
-
-        List<Integer> squaresContainingKnights = bitScan(knights);
-
-        for (int squareContainingKnight : squaresContainingKnights) {
-            long bitboardContainingSingleKnight = generateBitboardFromIndex(
-                    squareContainingKnight);
-
-            // move forward two squares, left one square
-            if ((bitboardContainingSingleKnight << 15 & NOT_FILE_H & validSquares) != 0b0) {
-                isCapture = (bitboardContainingSingleKnight << 15 & enemyPieces) != 0b0;
-                moves.add(
-                        new Move(
-                                squareContainingKnight,
-                                squareContainingKnight + 15,
-                                Piece.knight,
-                                turn,
-                                isCapture,
-                                false,
-                                false));
-            }
-
-            // move forward two squares, right one square
-            if ((bitboardContainingSingleKnight << 17 & NOT_FILE_A & validSquares) != 0b0) {
-                isCapture = (bitboardContainingSingleKnight << 17 & enemyPieces) != 0b0;
-                moves.add(
-                        new Move(
-                                squareContainingKnight,
-                                squareContainingKnight + 17,
-                                Piece.knight,
-                                turn,
-                                isCapture,
-                                false,
-                                false));
-            }
-
-            // move forward one square, left two squares
-            if ((bitboardContainingSingleKnight << 6 & NOT_FILE_H & NOT_FILE_G & validSquares) != 0b0) {
-                isCapture = (bitboardContainingSingleKnight << 6 & enemyPieces) != 0b0;
-                moves.add(
-                        new Move(
-                                squareContainingKnight,
-                                squareContainingKnight + 6,
-                                Piece.knight,
-                                turn,
-                                isCapture,
-                                false,
-                                false));
-            }
-
-            // move forward one square, right two squares
-            if ((bitboardContainingSingleKnight << 10 & NOT_FILE_A & NOT_FILE_B & validSquares) != 0b0) {
-                isCapture = (bitboardContainingSingleKnight << 10 & enemyPieces) != 0b0;
-                moves.add(
-                        new Move(
-                                squareContainingKnight,
-                                squareContainingKnight + 10,
-                                Piece.knight,
-                                turn,
-                                isCapture,
-                                false,
-                                false));
-            }
-
-            // move backward two squares, left one square
-            if ((bitboardContainingSingleKnight >> 17 & NOT_FILE_H & validSquares) != 0b0) {
-                isCapture = (bitboardContainingSingleKnight >> 17 & enemyPieces) != 0b0;
-                moves.add(
-                        new Move(
-                                squareContainingKnight,
-                                squareContainingKnight - 17,
-                                Piece.knight,
-                                turn,
-                                isCapture,
-                                false,
-                                false));
-            }
-
-            // move backward two squares, right one square
-            if ((bitboardContainingSingleKnight >> 15 & NOT_FILE_A & validSquares) != 0b0) {
-                isCapture = (bitboardContainingSingleKnight >> 15 & enemyPieces) != 0b0;
-                moves.add(
-                        new Move(
-                                squareContainingKnight,
-                                squareContainingKnight - 15,
-                                Piece.knight,
-                                turn,
-                                isCapture,
-                                false,
-                                false));
-            }
-
-            // move backward one square, left two squares
-            if ((bitboardContainingSingleKnight >> 10 & NOT_FILE_H & NOT_FILE_G & validSquares) != 0b0) {
-                isCapture = (bitboardContainingSingleKnight >> 10 & enemyPieces) != 0b0;
-                moves.add(
-                        new Move(
-                                squareContainingKnight,
-                                squareContainingKnight - 10,
-                                Piece.knight,
-                                turn,
-                                isCapture,
-                                false,
-                                false));
-            }
-
-            // move backward one square, right two squares
-            if ((bitboardContainingSingleKnight >> 6 & NOT_FILE_A & NOT_FILE_B & validSquares) != 0b0) {
-                isCapture = (bitboardContainingSingleKnight >> 6 & enemyPieces) != 0b0;
-                moves.add(
-                        new Move(
-                                squareContainingKnight,
-                                squareContainingKnight - 6,
-                                Piece.knight,
-                                turn,
-                                isCapture,
-                                false,
-                                false));
-            }
+            MoveList moves,
+            long targets) {
+        long knights = board.getPieceBitboard(Piece.knight, turn);
+        long enemyPieces = board.getColorBitboard(turn == Turn.WHITE ? Turn.BLACK : Turn.WHITE);
+
+        while (knights != 0) {
+            int squareContainingKnight = Long.numberOfTrailingZeros(knights);
+            addTargets(
+                    moves,
+                    board,
+                    squareContainingKnight,
+                    AttackTablesModule.getKnightAttacks(squareContainingKnight) & targets,
+                    Piece.knight,
+                    turn,
+                    enemyPieces);
+            knights &= knights - 1;
         }
     }
 
     private static void getLegalBishopMoves(
             Turn turn,
             Chessboard board,
-            List<Move> moves) {
-        long bishops = board.bitboards.get(Piece.bishop) &
-                (turn == Turn.WHITE
-                        ? board.bitboards.get(Piece.white)
-                        : board.bitboards.get(Piece.black));
-
-        long emptySquares = board.bitboards.get(Piece.empty);
-        long enemyPieces = turn == Turn.WHITE
-                ? board.bitboards.get(Piece.black)
-                : board.bitboards.get(Piece.white);
-        long validSquares = emptySquares | enemyPieces;
-
-        List<Integer> squaresContainingBishops = bitScan(bishops);
-
-        for (int squareContainingBishop : squaresContainingBishops) {
-            long bitboardContainingSingleBishop = generateBitboardFromIndex(
-                    squareContainingBishop);
-
-            travelDiagonal(
-                    bitboardContainingSingleBishop,
-                    squareContainingBishop,
-                    turn,
-                    moves,
-                    Piece.bishop,
-                    validSquares,
-                    enemyPieces);
-        }
+            MoveList moves,
+            long targets) {
+        getLegalSliderMoves(turn, board, moves, Piece.bishop, targets);
     }
 
     private static void getLegalRookMoves(
             Turn turn,
             Chessboard board,
-            List<Move> moves) {
-        long rooks = board.bitboards.get(Piece.rook) &
-                (turn == Turn.WHITE
-                        ? board.bitboards.get(Piece.white)
-                        : board.bitboards.get(Piece.black));
-
-        long emptySquares = board.bitboards.get(Piece.empty);
-        long enemyPieces = turn == Turn.WHITE
-                ? board.bitboards.get(Piece.black)
-                : board.bitboards.get(Piece.white);
-        long allyPieces = turn == Turn.WHITE
-                ? board.bitboards.get(Piece.white)
-                : board.bitboards.get(Piece.black);
-        long validSquares = emptySquares | enemyPieces;
-
-        List<Integer> squaresContainingRooks = bitScan(rooks);
-        boolean isCapture;
-
-        for (int squareContainingRook : squaresContainingRooks) {
-            long bitboardContainingSingleRook = generateBitboardFromIndex(
-                    squareContainingRook);
-
-            // move up
-            long bitboardContainingSingleRookCopy = bitboardContainingSingleRook;
-            while ((bitboardContainingSingleRookCopy << 8 & NOT_RANK_1 & validSquares) != 0b0) {
-                bitboardContainingSingleRookCopy <<= 8;
-                isCapture = (bitboardContainingSingleRookCopy & enemyPieces) != 0b0;
-                moves.add(
-                        new Move(
-                                squareContainingRook,
-                                Long.numberOfTrailingZeros(bitboardContainingSingleRookCopy),
-                                Piece.rook,
-                                turn,
-                                isCapture,
-                                false,
-                                false));
-
-                if ((bitboardContainingSingleRookCopy & enemyPieces) != 0b0 ||
-                        (bitboardContainingSingleRookCopy & allyPieces) != 0b0) {
-                    break;
-                }
-            }
-
-            // move down
-            bitboardContainingSingleRookCopy = bitboardContainingSingleRook;
-            while ((bitboardContainingSingleRookCopy >> 8 & NOT_RANK_8 & validSquares) != 0b0) {
-                bitboardContainingSingleRookCopy >>= 8;
-                isCapture = (bitboardContainingSingleRookCopy & enemyPieces) != 0b0;
-                moves.add(
-                        new Move(
-                                squareContainingRook,
-                                Long.numberOfTrailingZeros(bitboardContainingSingleRookCopy),
-                                Piece.rook,
-                                turn,
-                                isCapture,
-                                false,
-                                false));
-
-                if ((bitboardContainingSingleRookCopy & enemyPieces) != 0b0 ||
-                        (bitboardContainingSingleRookCopy & allyPieces) != 0b0) {
-                    break;
-                }
-            }
-
-            // move right
-            bitboardContainingSingleRookCopy = bitboardContainingSingleRook;
-            while ((bitboardContainingSingleRookCopy << 1 & NOT_FILE_A & validSquares) != 0b0) {
-                bitboardContainingSingleRookCopy <<= 1;
-                isCapture = (bitboardContainingSingleRookCopy & enemyPieces) != 0b0;
-                moves.add(
-                        new Move(
-                                squareContainingRook,
-                                Long.numberOfTrailingZeros(bitboardContainingSingleRookCopy),
-                                Piece.rook,
-                                turn,
-                                isCapture,
-                                false,
-                                false));
-
-                if ((bitboardContainingSingleRookCopy & enemyPieces) != 0b0 ||
-                        (bitboardContainingSingleRookCopy & allyPieces) != 0b0) {
-                    break;
-                }
-            }
-
-            // move left
-            bitboardContainingSingleRookCopy = bitboardContainingSingleRook;
-            while ((bitboardContainingSingleRookCopy >> 1 & NOT_FILE_H & validSquares) != 0b0) {
-                bitboardContainingSingleRookCopy >>= 1;
-                isCapture = (bitboardContainingSingleRookCopy & enemyPieces) != 0b0;
-                moves.add(
-                        new Move(
-                                squareContainingRook,
-                                Long.numberOfTrailingZeros(bitboardContainingSingleRookCopy),
-                                Piece.rook,
-                                turn,
-                                isCapture,
-                                false,
-                                false));
-
-                if ((bitboardContainingSingleRookCopy & enemyPieces) != 0b0 ||
-                        (bitboardContainingSingleRookCopy & allyPieces) != 0b0) {
-                    break;
-                }
-            }
-        }
+            MoveList moves,
+            long targets) {
+        getLegalSliderMoves(turn, board, moves, Piece.rook, targets);
     }
 
     private static void getLegalQueenMoves(
             Turn turn,
             Chessboard board,
-            List<Move> moves) {
-        long queens = board.bitboards.get(Piece.queen) &
-                (turn == Turn.WHITE
-                        ? board.bitboards.get(Piece.white)
-                        : board.bitboards.get(Piece.black));
-
-        long emptySquares = board.bitboards.get(Piece.empty);
-        long enemyPieces = turn == Turn.WHITE
-                ? board.bitboards.get(Piece.black)
-                : board.bitboards.get(Piece.white);
-        long allyPieces = turn == Turn.WHITE
-                ? board.bitboards.get(Piece.white)
-                : board.bitboards.get(Piece.black);
-        long validSquares = emptySquares | enemyPieces;
-
-        List<Integer> squaresContainingQueens = bitScan(queens);
-        boolean isCapture;
-
-        for (int squareContainingQueen : squaresContainingQueens) {
-            long bitboardContainingSingleQueen = generateBitboardFromIndex(
-                    squareContainingQueen);
-
-            // move up
-            long bitboardContainingSingleQueenCopy = bitboardContainingSingleQueen;
-            while ((bitboardContainingSingleQueenCopy << 8 & NOT_RANK_1 & validSquares) != 0b0) {
-                bitboardContainingSingleQueenCopy <<= 8;
-                isCapture = (bitboardContainingSingleQueenCopy & enemyPieces) != 0b0;
-                moves.add(
-                        new Move(
-                                squareContainingQueen,
-                                Long.numberOfTrailingZeros(bitboardContainingSingleQueenCopy),
-                                Piece.queen,
-                                turn,
-                                isCapture,
-                                false,
-                                false));
-
-                if ((bitboardContainingSingleQueenCopy & enemyPieces) != 0b0 ||
-                        (bitboardContainingSingleQueenCopy & allyPieces) != 0b0) {
-                    break;
-                }
-            }
-
-            // move down
-            bitboardContainingSingleQueenCopy = bitboardContainingSingleQueen;
-            while ((bitboardContainingSingleQueenCopy >> 8 & NOT_RANK_8 & validSquares) != 0b0) {
-                bitboardContainingSingleQueenCopy >>= 8;
-                isCapture = (bitboardContainingSingleQueenCopy & enemyPieces) != 0b0;
-                moves.add(
-                        new Move(
-                                squareContainingQueen,
-                                Long.numberOfTrailingZeros(bitboardContainingSingleQueenCopy),
-                                Piece.queen,
-                                turn,
-                                isCapture,
-                                false,
-                                false));
-
-                if ((bitboardContainingSingleQueenCopy & enemyPieces) != 0b0 ||
-                        (bitboardContainingSingleQueenCopy & allyPieces) != 0b0) {
-                    break;
-                }
-            }
-
-            // move right
-            bitboardContainingSingleQueenCopy = bitboardContainingSingleQueen;
-            while ((bitboardContainingSingleQueenCopy << 1 & NOT_FILE_A & validSquares) != 0b0) {
-                bitboardContainingSingleQueenCopy <<= 1;
-                isCapture = (bitboardContainingSingleQueenCopy & enemyPieces) != 0b0;
-                moves.add(
-                        new Move(
-                                squareContainingQueen,
-                                Long.numberOfTrailingZeros(bitboardContainingSingleQueenCopy),
-                                Piece.queen,
-                                turn,
-                                isCapture,
-                                false,
-                                false));
-
-                if ((bitboardContainingSingleQueenCopy & enemyPieces) != 0b0 ||
-                        (bitboardContainingSingleQueenCopy & allyPieces) != 0b0) {
-                    break;
-                }
-            }
-
-            // move left
-            bitboardContainingSingleQueenCopy = bitboardContainingSingleQueen;
-            while ((bitboardContainingSingleQueenCopy >> 1 & NOT_FILE_H & validSquares) != 0b0) {
-                bitboardContainingSingleQueenCopy >>= 1;
-                isCapture = (bitboardContainingSingleQueenCopy & enemyPieces) != 0b0;
-                moves.add(
-                        new Move(
-                                squareContainingQueen,
-                                Long.numberOfTrailingZeros(bitboardContainingSingleQueenCopy),
-                                Piece.queen,
-                                turn,
-                                isCapture,
-                                false,
-                                false));
-
-                if ((bitboardContainingSingleQueenCopy & enemyPieces) != 0b0 ||
-                        (bitboardContainingSingleQueenCopy & allyPieces) != 0b0) {
-                    break;
-                }
-            }
+            MoveList moves,
+            long targets) {
+        getLegalSliderMoves(turn, board, moves, Piece.queen, targets);
+    }
 
-            travelDiagonal(
-                    bitboardContainingSingleQueen,
-                    squareContainingQueen,
-                    turn,
+    private static void getLegalSliderMoves(
+            Turn turn,
+            Chessboard board,
+            MoveList moves,
+            Piece piece,
+            long targets) {
+        long sliders = board.getPieceBitboard(piece, turn);
+        long occupied = ~board.getBitboard(Piece.empty);
+        long enemyPieces = board.getColorBitboard(turn == Turn.WHITE ? Turn.BLACK : Turn.WHITE);
+
+        while (sliders != 0) {
+            int squareContainingSlider = Long.numberOfTrailingZeros(sliders);
+            long attacks = switch (piece) {
+                case bishop -> AttackTablesModule.getBishopAttacks(squareContainingSlider, occupied);
+                case rook -> AttackTablesModule.getRookAttacks(squareContainingSlider, occupied);
+                default -> AttackTablesModule.getQueenAttacks(squareContainingSlider, occupied);
+            };
+
+            addTargets(
                     moves,
-                    Piece.queen,
-                    validSquares,
+                    board,
+                    squareContainingSlider,
+                    attacks & targets,
+                    piece,
+                    turn,
                     enemyPieces);
-
-            moves.removeIf(move -> move.getPieceType() == Piece.queen && move.getPieceColor() == Turn.BLACK &&
-                    move.getToSquare() < 16);
+            sliders &= sliders - 1;
         }
     }
 
     private static void getLegalKingMoves(
             Turn turn,
             Chessboard board,
-            List<Move> moves,
-            Position position,
-            boolean whiteKingHasMoved,
-            boolean blackKingHasMoved) {
-        long kings = board.bitboards.get(Piece.king) &
-                (turn == Turn.WHITE
-                        ? board.bitboards.get(Piece.white)
-                        : board.bitboards.get(Piece.black));
-
-        long emptySquares = board.bitboards.get(Piece.empty);
-        long enemyPieces = turn == Turn.WHITE
-                ? board.bitboards.get(Piece.black)
-                : board.bitboards.get(Piece.white);
-        long allyPieces = turn == Turn.WHITE
-                ? board.bitboards.get(Piece.white)
-                : board.bitboards.get(Piece.black);
-        long validSquares = emptySquares | enemyPieces;
-
-        List<Integer> squaresContainingKings = bitScan(kings);
-        boolean isCapture;
-
-        for (int squareContainingKing : squaresContainingKings) {
-            long bitboardContainingSingleKing = generateBitboardFromIndex(
-                    squareContainingKing);
-
-            boolean kingMoved = false;
-
-            // move up
-            long bitboardContainingSingleKingCopy = bitboardContainingSingleKing;
-            if ((bitboardContainingSingleKingCopy << 8 & NOT_RANK_1 & validSquares) != 0b0) {
-                bitboardContainingSingleKingCopy <<= 8;
-                isCapture = (bitboardContainingSingleKingCopy & enemyPieces) != 0b0;
-                moves.add(
-                        new Move(
-                                squareContainingKing,
-                                Long.numberOfTrailingZeros(bitboardContainingSingleKingCopy),
-                                Piece.king,
-                                turn,
-                                isCapture,
-                                false,
-                                false));
-                kingMoved = true;
-            }
-
-            // move down
-            bitboardContainingSingleKingCopy = bitboardContainingSingleKing;
-            if ((bitboardContainingSingleKingCopy >> 8 & NOT_RANK_8 & validSquares) != 0b0) {
-                bitboardContainingSingleKingCopy >>= 8;
-                isCapture = (bitboardContainingSingleKingCopy & enemyPieces) != 0b0;
-                moves.add(
-                        new Move(
-                                squareContainingKing,
-                                Long.numberOfTrailingZeros(bitboardContainingSingleKingCopy),
-                                Piece.king,
-                                turn,
-                                isCapture,
-                                false,
-                                false));
-              kingMoved = true;
-            }
-
-            // move right
-            bitboardContainingSingleKingCopy = bitboardContainingSingleKing;
-            if ((bitboardContainingSingleKingCopy << 1 & NOT_FILE_A & validSquares) != 0b0) {
-                bitboardContainingSingleKingCopy <<= 1;
-                isCapture = (bitboardContainingSingleKingCopy & enemyPieces) != 0b0;
-                moves.add(
-                        new Move(
-                                squareContainingKing,
-                                Long.numberOfTrailingZeros(bitboardContainingSingleKingCopy),
-                                Piece.king,
-                                turn,
-                                isCapture,
-                                false,
-                                false));
-              kingMoved = true;
-            }
-
-            // move left
-            bitboardContainingSingleKingCopy = bitboardContainingSingleKing;
-            if ((bitboardContainingSingleKingCopy >> 1 & NOT_FILE_H & validSquares) != 0b0) {
-                bitboardContainingSingleKingCopy >>= 1;
-                isCapture = (bitboardContainingSingleKingCopy & enemyPieces) != 0b0;
-                moves.add(
-                        new Move(
-                                squareContainingKing,
-                                Long.numberOfTrailingZeros(bitboardContainingSingleKingCopy),
-                                Piece.king,
-                                turn,
-                                isCapture,
-                                false,
-                                false));
-              kingMoved = true;
-            }
-
-            // move up right
-            bitboardContainingSingleKingCopy = bitboardContainingSingleKing;
-            if ((bitboardContainingSingleKingCopy << 9 & NOT_RANK_1 & NOT_FILE_A & validSquares) != 0b0) {
-                bitboardContainingSingleKingCopy <<= 9;
-                isCapture = (bitboardContainingSingleKingCopy & enemyPieces) != 0b0;
-                moves.add(
-                        new Move(
-                                squareContainingKing,
-                                Long.numberOfTrailingZeros(bitboardContainingSingleKingCopy),
-                                Piece.king,
-                                turn,
-                                isCapture,
-                                false,
-                                false));
-              kingMoved = true;
-            }
-
-            // move up left
-            bitboardContainingSingleKingCopy = bitboardContainingSingleKing;
-            if ((bitboardContainingSingleKingCopy << 7 & NOT_RANK_1 & NOT_FILE_H & validSquares) != 0b0) {
-                bitboardContainingSingleKingCopy <<= 7;
-                isCapture = (bitboardContainingSingleKingCopy & enemyPieces) != 0b0;
-                moves.add(
-                        new Move(
-                                squareContainingKing,
-                                Long.numberOfTrailingZeros(bitboardContainingSingleKingCopy),
-                                Piece.king,
-                                turn,
-                                isCapture,
-                                false,
-                                false));
-              kingMoved = true;
-            }
-
-            // move down right
-            bitboardContainingSingleKingCopy = bitboardContainingSingleKing;
-            if ((bitboardContainingSingleKingCopy >> 7 & NOT_RANK_8 & NOT_FILE_A & validSquares) != 0b0) {
-                bitboardContainingSingleKingCopy >>= 7;
-                isCapture = (bitboardContainingSingleKingCopy & enemyPieces) != 0b0;
-                moves.add(
-                        new Move(
-                                squareContainingKing,
-                                Long.numberOfTrailingZeros(bitboardContainingSingleKingCopy),
-                                Piece.king,
-                                turn,
-                                isCapture,
-                                false,
-                                false));
-              kingMoved = true;
-            }
-
-            // move down left
-            bitboardContainingSingleKingCopy = bitboardContainingSingleKing;
-            if ((bitboardContainingSingleKingCopy >> 9 & NOT_RANK_8 & NOT_FILE_H & validSquares) != 0b0) {
-                bitboardContainingSingleKingCopy >>= 9;
-                isCapture = (bitboardContainingSingleKingCopy & enemyPieces) != 0b0;
-                moves.add(
-                        new Move(
-                                squareContainingKing,
-                                Long.numberOfTrailingZeros(bitboardContainingSingleKingCopy),
-                                Piece.king,
-                                turn,
-                                isCapture,
-                                false,
-                                false));
-              kingMoved = true;
-            }
-
-          bitboardContainingSingleKingCopy = bitboardContainingSingleKing;
-          if (turn == Turn.WHITE && !whiteKingHasMoved) {
-            if ((board.bitboards.get(Piece.white) & whitePiecesObstructingShortCastling) > 0) {
-              moves.add(
-                      new Move(
-                              squareContainingKing,
-                              6,
-                              Piece.king,
-                              turn,
-                              false,
-                              true,
-                              false));
-            } else if ((board.bitboards.get(Piece.white) & whitePiecesObstructingLongCastling) > 0) {
-              moves.add(
-                      new Move(
-                              squareContainingKing,
-                              2,
-                              Piece.king,
-                              turn,
-                              false,
-                              false,
-                              true));
-            }
-          } else if (turn == Turn.BLACK && !blackKingHasMoved) {
-            if ((board.bitboards.get(Piece.black) & blackPiecesObstructingShortCastling) > 0) {
-              moves.add(
-                      new Move(
-                              squareContainingKing,
-                              62,
-                              Piece.king,
-                              turn,
-                              false,
-                              true,
-                              false));
-            } else if ((board.bitboards.get(Piece.black) & blackPiecesObstructingLongCastling) > 0) {
-              moves.add(
-                      new Move(
-                              squareContainingKing,
-                              58,
-                              Piece.king,
-                              turn,
-                              false,
-                              false,
-                              true));
-            }
-          }
-        }
-    }
-
-    private static void travelDiagonal(
-            long bitboardContainingSinglePiece,
-            int squareContainingPiece,
-            Turn turn,
-            List<Move> moves,
-            Piece piece,
-            long validSquares,
-            long enemyPieces) {
-        boolean isCapture;
-
-        // move up right
-        long bitboardContainingSinglePieceCopy = bitboardContainingSinglePiece;
-        while ((bitboardContainingSinglePieceCopy << 9 & NOT_RANK_1 & NOT_FILE_A & validSquares) != 0b0) {
-            bitboardContainingSinglePieceCopy <<= 9;
-            isCapture = (bitboardContainingSinglePieceCopy & enemyPieces) != 0b0;
-            moves.add(
-                    new Move(
-                            squareContainingPiece,
-                            Long.numberOfTrailingZeros(bitboardContainingSinglePieceCopy),
-                            piece,
-                            turn,
-                            isCapture,
-                            false,
-                            false));
-
-            if ((bitboardContainingSinglePieceCopy & enemyPieces) != 0b0) {
-                break;
-            }
+            MoveList moves,
+            long targets,
+            boolean includeCastling) {
+        long king = board.getPieceBitboard(Piece.king, turn);
+        if (king == 0) {
+            return;
         }
 
-        // move up left
-        bitboardContainingSinglePieceCopy = bitboardContainingSinglePiece;
-        while ((bitboardContainingSinglePieceCopy << 7 & NOT_RANK_1 & NOT_FILE_H & validSquares) != 0b0) {
-            bitboardContainingSinglePieceCopy <<= 7;
-            isCapture = (bitboardContainingSinglePieceCopy & enemyPieces) != 0b0;
-            moves.add(
-                    new Move(
-                            squareContainingPiece,
-                            Long.numberOfTrailingZeros(bitboardContainingSinglePieceCopy),
-                            piece,
-                            turn,
-                            isCapture,
-                            false,
-                            false));
-
-            if ((bitboardContainingSinglePieceCopy & enemyPieces) != 0b0) {
-                break;
-            }
-        }
-
-        // move down right
-        bitboardContainingSinglePieceCopy = bitboardContainingSinglePiece;
-        while ((bitboardContainingSinglePieceCopy >> 7 & NOT_RANK_8 & NOT_FILE_A & validSquares) != 0b0) {
-            bitboardContainingSinglePieceCopy >>= 7;
-            isCapture = (bitboardContainingSinglePieceCopy & enemyPieces) != 0b0;
-            moves.add(
-                    new Move(
-                            squareContainingPiece,
-                            Long.numberOfTrailingZeros(bitboardContainingSinglePieceCopy),
-                            piece,
-                            turn,
-                            isCapture,
-                            false,
-                            false));
-
-            if ((bitboardContainingSinglePieceCopy & enemyPieces) != 0b0) {
-                break;
-            }
+        int squareContainingKing = Long.numberOfTrailingZeros(king);
+        Turn opponent = turn == Turn.WHITE ? Turn.BLACK : Turn.WHITE;
+        long enemyPieces = board.getColorBitboard(opponent);
+
+        addTargets(
+                moves,
+                board,
+                squareContainingKing,
+                AttackTablesModule.getKingAttacks(squareContainingKing) & targets,
+                Piece.king,
+                turn,
+                enemyPieces);
+
+        if (!includeCastling) {
+            return;
         }
 
-        // move down left
-        bitboardContainingSinglePieceCopy = bitboardContainingSinglePiece;
-        while ((bitboardContainingSinglePieceCopy >> 9 & NOT_RANK_8 & NOT_FILE_H & validSquares) != 0b0) {
-            bitboardContainingSinglePieceCopy >>= 9;
-            isCapture = (bitboardContainingSinglePieceCopy & enemyPieces) != 0b0;
-            moves.add(
-                    new Move(
-                            squareContainingPiece,
-                            Long.numberOfTrailingZeros(bitboardContainingSinglePieceCopy),
-                            piece,
-                            turn,
-                            isCapture,
-                            false,
-                            false));
-
-            if ((bitboardContainingSinglePieceCopy & enemyPieces) != 0b0) {
-                break;
+        // the king may not castle out of, through or into check
+        long emptySquares = board.getBitboard(Piece.empty);
+        long rooks = board.getPieceBitboard(Piece.rook, turn);
+        if (turn == Turn.WHITE && squareContainingKing == 4) {
+            if (board.canCastle(Chessboard.WHITE_SHORT_CASTLE) && (rooks & (1L << 7)) != 0 &&
+                    (emptySquares & WHITE_SHORT_CASTLE_PATH) == WHITE_SHORT_CASTLE_PATH &&
+                    !isSquareAttacked(board, 5, opponent) && !isSquareAttacked(board, 6, opponent)) {
+                addMove(moves, board, 4, 6, Piece.king, turn, false, true, false);
+            }
+            if (board.canCastle(Chessboard.WHITE_LONG_CASTLE) && (rooks & 1L) != 0 &&
+                    (emptySquares & WHITE_LONG_CASTLE_PATH) == WHITE_LONG_CASTLE_PATH &&
+                    !isSquareAttacked(board, 3, opponent) && !isSquareAttacked(board, 2, opponent)) {
+                addMove(moves, board, 4, 2, Piece.king, turn, false, false, true);
+            }
+        } else if (turn == Turn.BLACK && squareContainingKing == 60) {
+            if (board.canCastle(Chessboard.BLACK_SHORT_CASTLE) && (rooks & (1L << 63)) != 0 &&
+                    (emptySquares & BLACK_SHORT_CASTLE_PATH) == BLACK_SHORT_CASTLE_PATH &&
+                    !isSquareAttacked(board, 61, opponent) && !isSquareAttacked(board, 62, opponent)) {
+                addMove(moves, board, 60, 62, Piece.king, turn, false, true, false);
+            }
+            if (board.canCastle(Chessboard.BLACK_LONG_CASTLE) && (rooks & (1L << 56)) != 0 &&
+                    (emptySquares & BLACK_LONG_CASTLE_PATH) == BLACK_LONG_CASTLE_PATH &&
+                    !isSquareAttacked(board, 59, opponent) && !isSquareAttacked(board, 58, opponent)) {
+                addMove(moves, board, 60, 58, Piece.king, turn, false, false, true);
             }
         }
     }
@@ -0,0 +1,107 @@
+package com.chessai.util;
+
+import com.chessai.model.Chessboard;
+import com.chessai.model.Move;
+import com.chessai.model.Position;
+import com.chessai.model.Position.Turn;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Offline tool that turns a text file of games, one per line in move-number notation
+ * ("1. e4 e5 2. Nf3 Nc6 ... 1-0"), into the binary book read by {@link OpeningsUtilityModule}.
+ * Every game is replayed and each position reached in its first {@link #MAX_BOOK_PLY} plies is
+ * recorded with the moves played from it and how often.
+ *
+ * Usage: {@code java -cp target/classes com.chessai.util.OpeningBookBuilder <games.txt> <book.bin>}
+ *
+ * The file is a header (magic number, entry count) followed by (position key, packed move,
+ * weight) entries sorted by key, so the reader can binary search it without loading it.
+ */
+public class OpeningBookBuilder {
+    private static final int MAX_BOOK_PLY = 40;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: OpeningBookBuilder <games.txt> <book.bin>");
+            System.exit(1);
+        }
+        int entries = buildOpeningBook(args[0], args[1]);
+        System.out.println("Wrote " + entries + " book entries to " + args[1]);
+    }
+
+    /**
+     * Builds the binary book and returns the number of entries written.
+     */
+    public static int buildOpeningBook(String gamesPath, String bookPath) throws IOException {
+        Map<Long, Map<Integer, Integer>> moveCounts = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(gamesPath))) {
+            String game;
+            int lineNumber = 0;
+            while ((game = reader.readLine()) != null) {
+                addGame(game, ++lineNumber, moveCounts);
+            }
+        }
+
+        List<Long> keys = new ArrayList<>(moveCounts.keySet());
+        keys.sort(Long::compare);
+
+        int entries = 0;
+        for (Map<Integer, Integer> moves : moveCounts.values()) {
+            entries += moves.size();
+        }
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(bookPath)))) {
+            out.writeInt(OpeningsUtilityModule.BOOK_MAGIC);
+            out.writeInt(entries);
+            for (long key : keys) {
+                for (Map.Entry<Integer, Integer> move : moveCounts.get(key).entrySet()) {
+                    out.writeLong(key);
+                    out.writeInt(move.getKey());
+                    out.writeInt(move.getValue());
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static void addGame(String game, int lineNumber, Map<Long, Map<Integer, Integer>> moveCounts) {
+        Position position = ChessboardUtilityModule.convertFenToPosition(ChessboardUtilityModule.STARTING_FEN);
+        Chessboard board = position.board;
+        Turn turn = position.getTurn();
+
+        int ply = 0;
+        for (String token : game.trim().split("\\s+")) {
+            if (ply >= MAX_BOOK_PLY) {
+                return;
+            }
+            // skip move numbers and the result
+            if (token.isEmpty() || Character.isDigit(token.charAt(0)) || token.equals("*")) {
+                continue;
+            }
+
+            int move = ChessboardUtilityModule.convertAlgebraicNotationToMove(board, turn, token);
+            if (move == Move.NONE) {
+                System.err.println("Line " + lineNumber + ": cannot play " + token + ", skipping the rest of the game");
+                return;
+            }
+
+            long key = ZobristModule.getPositionKey(board, board.getZobristKey());
+            moveCounts.computeIfAbsent(key, k -> new HashMap<>()).merge(move, 1, Integer::sum);
+
+            board.makeMove(move);
+            turn = turn == Turn.WHITE ? Turn.BLACK : Turn.WHITE;
+            ply++;
+        }
+    }
+}
@@ -1,49 +1,122 @@
 package com.chessai.util;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.FileReader;
-import java.io.FileWriter;
+import com.chessai.model.Chessboard;
+import com.chessai.model.Move;
+import com.chessai.model.MoveList;
+import com.chessai.model.Position.Turn;
+
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Opening book read from the binary file written by {@link OpeningBookBuilder}. The file is
+ * memory-mapped rather than loaded, so it lives outside the heap and opening it costs nothing up
+ * front; a lookup binary searches the entries, which are sorted by position key.
+ */
 public class OpeningsUtilityModule {
-    public static List<String> openingLines;
+    static final int BOOK_MAGIC = 0x43424F4B; // "CBOK"
+    static final int HEADER_BYTES = 2 * Integer.BYTES;
+    static final int ENTRY_BYTES = Long.BYTES + 2 * Integer.BYTES;
 
-    public static void initOpeningLines() {
-        openingLines = new ArrayList<>();
-        String filePath = "backend/src/main/java/com/chessai/data/lichess-elite.txt";
-        try {
-            BufferedReader reader = new BufferedReader(new FileReader(filePath));
-            String openingLine = "";
+    private static final int MOVE_OFFSET = Long.BYTES;
+    private static final int WEIGHT_OFFSET = Long.BYTES + Integer.BYTES;
 
-            while ((openingLine = reader.readLine()) != null) {
-                openingLines.add(openingLine);
-            }
+    private static volatile ByteBuffer openingBook;
+    private static volatile int entryCount;
 
-            reader.close();
-        } catch (IOException e) {
-            e.printStackTrace();
+    public static void initOpeningBook(String filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            ByteBuffer book = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (book.limit() < HEADER_BYTES || book.getInt(0) != BOOK_MAGIC) {
+                throw new IOException(filePath + " is not an opening book");
+            }
+            entryCount = book.getInt(Integer.BYTES);
+            openingBook = book;
         }
     }
 
-    public static String scanGames(String currentGameNotation) {
-        Collections.shuffle(openingLines);
+    /**
+     * Picks a book move for the position at random, weighted by how often it was played. Returns
+     * {@link Move#NONE} if the position is not in the book or none of its book moves is legal.
+     *
+     * The book's keys leave out the castling rights and en passant square, so a position can match
+     * book games in which castling or an en passant capture was still possible; only the book moves
+     * that are legal in the position itself are considered.
+     */
+    public static int getBookMove(Chessboard board, Turn turn) {
+        ByteBuffer book = openingBook;
+        if (book == null) {
+            return Move.NONE;
+        }
 
-        for (int i = 0; i < openingLines.size(); i++) {
-            String openingLine = openingLines.get(i);
-            if (openingLine.startsWith(currentGameNotation)) {
-                String openingMove = openingLine.substring(currentGameNotation.length());
+        long key = ZobristModule.getPositionKey(board, ZobristModule.computeKey(board, turn));
+        int first = findFirstEntry(book, key);
+        if (first == entryCount || getKey(book, first) != key) {
+            return Move.NONE;
+        }
 
-                String[] openingMoves = openingMove.split(" ");
-                openingMove = openingMoves[0];
-                String gameOutcome = openingMoves[openingMoves.length - 1];
-                return openingMove;
+        MoveList legalMoves = new MoveList();
+        LegalMovesModule.getLegalMoves(board, turn, legalMoves);
+        int last = first;
+        int totalWeight = 0;
+        while (last < entryCount && getKey(book, last) == key) {
+            if (isLegal(legalMoves, book.getInt(entryOffset(last) + MOVE_OFFSET))) {
+                totalWeight += book.getInt(entryOffset(last) + WEIGHT_OFFSET);
             }
+            last++;
+        }
+        if (totalWeight == 0) {
+            return Move.NONE;
         }
 
-        return "";
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (int i = first; i < last; i++) {
+            int move = book.getInt(entryOffset(i) + MOVE_OFFSET);
+            if (!isLegal(legalMoves, move)) {
+                continue;
+            }
+            pick -= book.getInt(entryOffset(i) + WEIGHT_OFFSET);
+            if (pick < 0) {
+                return move;
+            }
+        }
+        return Move.NONE;
+    }
+
+    private static boolean isLegal(MoveList legalMoves, int move) {
+        for (int i = 0; i < legalMoves.size(); i++) {
+            if (legalMoves.get(i) == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // returns the index of the first entry whose key is not less than the given key
+    private static int findFirstEntry(ByteBuffer book, long key) {
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (getKey(book, middle) < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static long getKey(ByteBuffer book, int entry) {
+        return book.getLong(entryOffset(entry));
+    }
+
+    private static int entryOffset(int entry) {
+        return HEADER_BYTES + entry * ENTRY_BYTES;
     }
 }
@@ -0,0 +1,75 @@
+package com.chessai.util;
+
+import static com.chessai.util.ChessboardUtilityModule.convertMoveToCoordinateNotation;
+
+import com.chessai.model.Chessboard;
+import com.chessai.model.MoveList;
+import com.chessai.model.Position.Turn;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Perft: counts the leaf nodes of the full legal move tree to a fixed depth. The counts for the
+ * standard test positions are well known, so any difference points at a move generation bug, and
+ * the time taken measures the speed of move generation plus make/unmake.
+ */
+public class PerftModule {
+
+    public static long perft(Chessboard board, Turn turn, int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        return perft(board, turn, depth, createMoveLists(depth));
+    }
+
+    /**
+     * Returns the perft count below each legal move of the position, keyed by the move in
+     * coordinate notation (such as "e2e4" or "e7e8q"), for tracking down a wrong total.
+     */
+    public static Map<String, Long> divide(Chessboard board, Turn turn, int depth) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        if (depth <= 0) {
+            return counts;
+        }
+
+        MoveList[] moveLists = createMoveLists(depth);
+        MoveList moves = moveLists[depth - 1];
+        LegalMovesModule.getLegalMoves(board, turn, moves);
+        Turn nextTurn = turn == Turn.WHITE ? Turn.BLACK : Turn.WHITE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            board.makeMove(move);
+            counts.put(convertMoveToCoordinateNotation(move), depth == 1 ? 1 : perft(board, nextTurn, depth - 1, moveLists));
+            board.unmakeMove();
+        }
+        return counts;
+    }
+
+    // the list for the remaining depth is reused by every node at that depth
+    private static long perft(Chessboard board, Turn turn, int depth, MoveList[] moveLists) {
+        MoveList moves = moveLists[depth - 1];
+        LegalMovesModule.getLegalMoves(board, turn, moves);
+        // the moves are legal, so the leaves do not have to be played to be counted
+        if (depth == 1) {
+            return moves.size();
+        }
+
+        long nodes = 0;
+        Turn nextTurn = turn == Turn.WHITE ? Turn.BLACK : Turn.WHITE;
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            nodes += perft(board, nextTurn, depth - 1, moveLists);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    private static MoveList[] createMoveLists(int depth) {
+        MoveList[] moveLists = new MoveList[depth];
+        for (int i = 0; i < depth; i++) {
+            moveLists[i] = new MoveList();
+        }
+        return moveLists;
+    }
+}
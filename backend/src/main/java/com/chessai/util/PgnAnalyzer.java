@@ -0,0 +1,316 @@
+package com.chessai.util;
+
+import com.chessai.model.Chessboard;
+import com.chessai.model.Move;
+import com.chessai.model.Position;
+import com.chessai.model.Position.Turn;
+import com.chessai.search.SearchEngine;
+import com.chessai.search.SearchResult;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Offline tool that searches every position played in a PGN file, such as a database of master
+ * games, to a fixed depth or for a fixed time per move. Each game is replayed from the starting
+ * position (or its FEN tag) and one tab-separated line is written per move: game number, ply, move
+ * played, best move found, score from white's point of view, depth, nodes and the FEN of the
+ * position before the move.
+ *
+ * Usage: {@code java -cp target/classes com.chessai.util.PgnAnalyzer <games.pgn> <analysis.tsv>
+ * [--depth N | --time-ms N] [--threads N]}
+ *
+ * Games are analyzed in parallel, each worker with a single-threaded engine of its own. The file
+ * is read one game at a time and only a few games per worker are held in memory, with their
+ * results written in the order of the file, so files of any size can be streamed.
+ */
+public class PgnAnalyzer {
+
+    private static final int DEFAULT_DEPTH = 6;
+    private static final int TRANSPOSITION_TABLE_SIZE_MB = 16;
+    // games read ahead per worker, so that the workers do not wait for the reader or the writer
+    private static final int GAMES_IN_FLIGHT_PER_WORKER = 4;
+    private static final Pattern TAG = Pattern.compile("^\\[(\\w+)\\s+\"(.*)\"\\]$");
+    private static final Pattern MOVE_NUMBER = Pattern.compile("^\\d+\\.+");
+    private static final Pattern ANNOTATION = Pattern.compile("[!?]+$");
+
+    private final int depth;
+    private final long timeBudgetMs;
+    // each worker thread searches with its own engine, since an engine runs one search at a time
+    private final ThreadLocal<SearchEngine> engines;
+
+    /**
+     * Searches every position to the given depth, or for the given time if the depth is 0.
+     */
+    public PgnAnalyzer(int depth, long timeBudgetMs) {
+        this.depth = depth;
+        this.timeBudgetMs = timeBudgetMs;
+        this.engines = ThreadLocal.withInitial(() -> new SearchEngine(TRANSPOSITION_TABLE_SIZE_MB, timeBudgetMs, 1));
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2 || args.length % 2 != 0) {
+            printUsageAndExit();
+        }
+
+        int depth = DEFAULT_DEPTH;
+        long timeBudgetMs = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        try {
+            for (int i = 2; i < args.length; i += 2) {
+                switch (args[i]) {
+                    case "--depth" -> depth = Integer.parseInt(args[i + 1]);
+                    case "--time-ms" -> {
+                        timeBudgetMs = Long.parseLong(args[i + 1]);
+                        depth = 0;
+                    }
+                    case "--threads" -> threads = Integer.parseInt(args[i + 1]);
+                    default -> printUsageAndExit();
+                }
+            }
+        } catch (NumberFormatException e) {
+            printUsageAndExit();
+        }
+        if ((depth <= 0 && timeBudgetMs <= 0) || depth >= SearchEngine.MAX_PLY || threads <= 0) {
+            printUsageAndExit();
+        }
+
+        long startTime = System.currentTimeMillis();
+        long games = new PgnAnalyzer(depth, timeBudgetMs).analyze(args[0], args[1], threads);
+        System.out.println("Analyzed " + games + " games in " + (System.currentTimeMillis() - startTime) / 1000.0
+                + "s, written to " + args[1]);
+    }
+
+    private static void printUsageAndExit() {
+        System.err.println("Usage: PgnAnalyzer <games.pgn> <analysis.tsv> [--depth N | --time-ms N] [--threads N]");
+        System.exit(1);
+    }
+
+    /**
+     * Analyzes every game in the PGN file on the given number of threads, writes the results to the
+     * output file and returns the number of games read.
+     */
+    public long analyze(String pgnPath, String outputPath, int threads) throws IOException, InterruptedException {
+        AtomicInteger workerNumber = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "pgn-analyzer-" + workerNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Deque<Future<String>> pending = new ArrayDeque<>();
+        long games = 0;
+        try (PgnReader reader = new PgnReader(Files.newBufferedReader(Path.of(pgnPath), StandardCharsets.UTF_8));
+                Writer writer = Files.newBufferedWriter(Path.of(outputPath), StandardCharsets.UTF_8)) {
+            writer.write("game\tply\tplayed\tbest\tscore\tdepth\tnodes\tfen\n");
+
+            PgnGame game;
+            while ((game = reader.nextGame()) != null) {
+                PgnGame nextGame = game;
+                long gameNumber = ++games;
+                pending.add(workers.submit(() -> analyzeGame(gameNumber, nextGame)));
+                // results are written in the order of the file, so wait for the oldest game once the
+                // workers have enough to do
+                if (pending.size() >= threads * GAMES_IN_FLIGHT_PER_WORKER) {
+                    writer.write(getResult(pending.poll()));
+                }
+            }
+            while (!pending.isEmpty()) {
+                writer.write(getResult(pending.poll()));
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        return games;
+    }
+
+    private static String getResult(Future<String> result) throws InterruptedException {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Analysis of a game failed", e.getCause());
+        }
+    }
+
+    // replays the game and returns the lines for its moves; a game is analyzed up to its first
+    // move that cannot be played
+    private String analyzeGame(long gameNumber, PgnGame game) {
+        SearchEngine engine = engines.get();
+        // every game starts from an empty table, so that the results do not depend on which worker
+        // analyzed which games before
+        engine.clear();
+
+        Chessboard board;
+        Turn turn;
+        try {
+            Position position = ChessboardUtilityModule.convertFenToPosition(game.fen);
+            board = position.board;
+            turn = position.getTurn();
+        } catch (IllegalArgumentException e) {
+            System.err.println("Skipping game " + gameNumber + ": " + e.getMessage());
+            return "";
+        }
+
+        StringBuilder lines = new StringBuilder();
+        int ply = 0;
+        for (String token : getMoveTokens(game.moveText)) {
+            int move = ChessboardUtilityModule.convertAlgebraicNotationToMove(board, turn, token);
+            if (move == Move.NONE) {
+                System.err.println("Game " + gameNumber + ": cannot play " + token + " at ply " + ply
+                        + ", skipping the rest of the game");
+                break;
+            }
+
+            String fen = ChessboardUtilityModule.convertChessboardToFen(board, turn);
+            SearchResult result = depth > 0
+                    ? engine.searchToDepth(board, turn, depth)
+                    : engine.search(board, turn, null, timeBudgetMs);
+            lines.append(gameNumber).append('\t')
+                    .append(ply).append('\t')
+                    .append(token).append('\t')
+                    .append(ChessboardUtilityModule.convertMoveToCoordinateNotation(result.getBestMove())).append('\t')
+                    .append(result.getScore()).append('\t')
+                    .append(result.getDepth()).append('\t')
+                    .append(result.getNodes()).append('\t')
+                    .append(fen).append('\n');
+
+            board.makeMove(move);
+            // a game is only ever replayed forwards, so its moves need no undo information, which
+            // would run out in games longer than the undo stack
+            board.clearUndoHistory();
+            turn = turn == Turn.WHITE ? Turn.BLACK : Turn.WHITE;
+            ply++;
+        }
+        return lines.toString();
+    }
+
+    // splits movetext into its moves in standard algebraic notation, leaving out comments,
+    // variations, move numbers, annotation glyphs and the result
+    static List<String> getMoveTokens(String moveText) {
+        StringBuilder mainLine = new StringBuilder(moveText.length());
+        int variationDepth = 0;
+        // the character that ends the comment being skipped: "}" for a brace comment, the end of
+        // the line for one starting with ";", or 0 outside comments
+        char commentEnd = 0;
+        for (int i = 0; i < moveText.length(); i++) {
+            char c = moveText.charAt(i);
+            if (commentEnd != 0) {
+                if (c == commentEnd) {
+                    commentEnd = 0;
+                    // keep the moves on either side apart, as in "e4{best}e5"
+                    mainLine.append(' ');
+                }
+            } else if (c == '{') {
+                commentEnd = '}';
+            } else if (c == ';') {
+                commentEnd = '\n';
+            } else if (c == '(') {
+                variationDepth++;
+            } else if (c == ')') {
+                variationDepth = Math.max(0, variationDepth - 1);
+                mainLine.append(' ');
+            } else if (variationDepth == 0) {
+                mainLine.append(c);
+            }
+        }
+
+        List<String> moves = new ArrayList<>();
+        for (String token : mainLine.toString().trim().split("\\s+")) {
+            // move numbers may be written without a space before the move, as in "12.e4", and moves
+            // may carry annotations such as "Nf6?!"
+            token = MOVE_NUMBER.matcher(token).replaceFirst("");
+            token = ANNOTATION.matcher(token).replaceFirst("");
+            if (token.isEmpty() || token.startsWith("$") || token.equals("*")
+                    || token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2")) {
+                continue;
+            }
+            moves.add(token);
+        }
+        return moves;
+    }
+
+    // a game as read from the file: the position it starts from and its unparsed movetext
+    static class PgnGame {
+        final String fen;
+        final String moveText;
+
+        PgnGame(String fen, String moveText) {
+            this.fen = fen;
+            this.moveText = moveText;
+        }
+    }
+
+    // reads a PGN file one game at a time
+    static class PgnReader implements Closeable {
+        private final BufferedReader reader;
+        // first line of the next game when a game ends without a blank line before the next one
+        private String pendingLine;
+
+        PgnReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        // returns the next game, or null at the end of the file
+        PgnGame nextGame() throws IOException {
+            String fen = ChessboardUtilityModule.STARTING_FEN;
+            StringBuilder moveText = new StringBuilder();
+            boolean hasTags = false;
+            String line;
+            while ((line = nextLine()) != null) {
+                line = line.trim();
+                boolean hasMoves = moveText.length() > 0;
+                if (line.isEmpty()) {
+                    if (hasMoves) {
+                        break;
+                    }
+                } else if (line.startsWith("%")) {
+                    // escaped line, meant for other software
+                    continue;
+                } else if (line.startsWith("[")) {
+                    if (hasMoves) {
+                        pendingLine = line;
+                        break;
+                    }
+                    hasTags = true;
+                    Matcher tag = TAG.matcher(line);
+                    if (tag.matches() && tag.group(1).equals("FEN")) {
+                        fen = tag.group(2);
+                    }
+                } else {
+                    // line breaks are kept, since they end ";" comments
+                    moveText.append(line).append('\n');
+                }
+            }
+            return hasTags || moveText.length() > 0 ? new PgnGame(fen, moveText.toString()) : null;
+        }
+
+        private String nextLine() throws IOException {
+            if (pendingLine != null) {
+                String line = pendingLine;
+                pendingLine = null;
+                return line;
+            }
+            return reader.readLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
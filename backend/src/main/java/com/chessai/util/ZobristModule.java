@@ -0,0 +1,93 @@
+package com.chessai.util;
+
+import com.chessai.model.Chessboard;
+import com.chessai.model.Chessboard.Piece;
+import com.chessai.model.Position.Turn;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing. A position's key is the XOR of one key per piece on its
+ * square, one for the castling rights, one for the file of the en passant square if there is one
+ * and one if black is to move, so a move only has to XOR out what changed instead of rehashing
+ * the board.
+ */
+public class ZobristModule {
+    private static final long ZOBRIST_SEED = 0x2545F4914F6CDD1DL;
+
+    private static final long[][][] PIECE_KEYS = new long[2][6][64];
+    private static final long[] CASTLING_KEYS = new long[16];
+    private static final long BLACK_TO_MOVE_KEY;
+    private static final long[] EN_PASSANT_KEYS = new long[8];
+
+    static {
+        SplittableRandom random = new SplittableRandom(ZOBRIST_SEED);
+        for (int color = 0; color < 2; color++) {
+            for (int piece = 0; piece < 6; piece++) {
+                for (int square = 0; square < 64; square++) {
+                    PIECE_KEYS[color][piece][square] = random.nextLong();
+                }
+            }
+        }
+        for (int rights = 0; rights < 16; rights++) {
+            CASTLING_KEYS[rights] = random.nextLong();
+        }
+        BLACK_TO_MOVE_KEY = random.nextLong();
+        for (int file = 0; file < 8; file++) {
+            EN_PASSANT_KEYS[file] = random.nextLong();
+        }
+    }
+
+    public static long getPieceKey(Turn color, Piece pieceType, int square) {
+        return PIECE_KEYS[color == Turn.WHITE ? 0 : 1][pieceType.ordinal()][square];
+    }
+
+    public static long getCastlingKey(int castlingRights) {
+        return CASTLING_KEYS[castlingRights];
+    }
+
+    public static long getBlackToMoveKey() {
+        return BLACK_TO_MOVE_KEY;
+    }
+
+    /**
+     * Returns the key for the given en passant square, or 0 if there is none.
+     */
+    public static long getEnPassantKey(int enPassantSquare) {
+        return enPassantSquare == Chessboard.NO_EN_PASSANT ? 0L : EN_PASSANT_KEYS[enPassantSquare & 7];
+    }
+
+    /**
+     * Hashes the board from scratch. Chessboard keeps its key up to date incrementally, so this is
+     * only needed once a board has been set up.
+     */
+    public static long computeKey(Chessboard board, Turn sideToMove) {
+        long key = 0L;
+        for (Turn color : Turn.values()) {
+            for (int piece = 0; piece < 6; piece++) {
+                Piece pieceType = Piece.values()[piece];
+                long pieces = board.getPieceBitboard(pieceType, color);
+                while (pieces != 0) {
+                    key ^= getPieceKey(color, pieceType, Long.numberOfTrailingZeros(pieces));
+                    pieces &= pieces - 1;
+                }
+            }
+        }
+
+        key ^= CASTLING_KEYS[board.getCastlingRights()];
+        key ^= getEnPassantKey(board.getEnPassantSquare());
+        if (sideToMove == Turn.BLACK) {
+            key ^= BLACK_TO_MOVE_KEY;
+        }
+        return key;
+    }
+
+    /**
+     * Returns a key that only covers the pieces and the side to move, for the opening book, where
+     * the castling rights and en passant square known for a client's game may not match those of
+     * the games the book was built from.
+     */
+    public static long getPositionKey(Chessboard board, long zobristKey) {
+        return zobristKey ^ CASTLING_KEYS[board.getCastlingRights()] ^ getEnPassantKey(board.getEnPassantSquare());
+    }
+}
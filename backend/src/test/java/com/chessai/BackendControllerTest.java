@@ -0,0 +1,133 @@
+package com.chessai;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.chessai.util.ChessboardUtilityModule;
+import com.chessai.util.EvaluationModule;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * The endpoints over HTTP. The batch evaluation's scores must be the static evaluation the engine
+ * itself gives each position, in the order of the request, and positions the engine cannot play
+ * from are answered with 400.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class BackendControllerTest {
+
+  private static final List<String> FENS = List.of(
+      ChessboardUtilityModule.STARTING_FEN,
+      "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+      "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+      "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+      "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+      "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10");
+
+  private final Gson gson = new Gson();
+
+  @Autowired
+  private TestRestTemplate restTemplate;
+
+  @Test
+  void evaluatesFens() {
+    ResponseEntity<String> response = evaluate(Map.of("fens", FENS));
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertArrayEquals(expectedScores(FENS), getScores(response));
+  }
+
+  @Test
+  void evaluatesBoards() {
+    List<String[]> boards = new ArrayList<>();
+    for (String fen : FENS) {
+      boards.add(ChessboardUtilityModule.convertChessboardToStringArray(
+          ChessboardUtilityModule.convertFenToPosition(fen).board));
+    }
+
+    ResponseEntity<String> response = evaluate(Map.of("boards", boards));
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertArrayEquals(expectedScores(FENS), getScores(response));
+  }
+
+  @Test
+  void keepsOrderAcrossChunks() {
+    // large enough to be split between the evaluation workers
+    List<String> fens = new ArrayList<>();
+    for (int i = 0; i < 5_000; i++) {
+      fens.add(FENS.get(i % FENS.size()));
+    }
+
+    ResponseEntity<String> response = evaluate(Map.of("fens", fens));
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertArrayEquals(expectedScores(fens), getScores(response));
+  }
+
+  @Test
+  void rejectsInvalidFenWithItsIndex() {
+    ResponseEntity<String> response = evaluate(Map.of("fens", List.of(FENS.get(0), "4k3/8/8/8/8/8/8/8 w - - 0 1")));
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertTrue(gson.fromJson(response.getBody(), JsonObject.class).get("error").getAsString().startsWith("Position 1"));
+  }
+
+  @Test
+  void rejectsBatchWithBothFensAndBoards() {
+    String[] board = ChessboardUtilityModule.convertChessboardToStringArray(
+        ChessboardUtilityModule.convertFenToPosition(FENS.get(0)).board);
+
+    ResponseEntity<String> response = evaluate(Map.of("fens", FENS, "boards", List.<String[]>of(board)));
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+  }
+
+  @Test
+  void rejectsComputerMoveForBoardWithoutKings() {
+    String[] board = ChessboardUtilityModule.convertChessboardToStringArray(
+        ChessboardUtilityModule.convertFenToPosition(FENS.get(0)).board);
+    board[4] = "";
+    board[60] = "";
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    Map<String, String> request = Map.of("jsonPayload", gson.toJson(board), "whiteKingHasMoved", "false");
+
+    ResponseEntity<String> response = restTemplate.postForEntity(
+        "/api/getComputerMove", new HttpEntity<>(gson.toJson(request), headers), String.class);
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+  }
+
+  private ResponseEntity<String> evaluate(Map<String, ?> request) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    return restTemplate.postForEntity(
+        "/api/evaluatePositions", new HttpEntity<>(gson.toJson(request), headers), String.class);
+  }
+
+  private int[] getScores(ResponseEntity<String> response) {
+    return gson.fromJson(gson.fromJson(response.getBody(), JsonObject.class).get("scores"), int[].class);
+  }
+
+  private static int[] expectedScores(List<String> fens) {
+    int[] scores = new int[fens.size()];
+    for (int i = 0; i < scores.length; i++) {
+      scores[i] = EvaluationModule.boardEvaluation(ChessboardUtilityModule.convertFenToPosition(fens.get(i)).board);
+    }
+    return scores;
+  }
+}
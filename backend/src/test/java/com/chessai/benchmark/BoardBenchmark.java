@@ -0,0 +1,97 @@
+package com.chessai.benchmark;
+
+import com.chessai.PestoEval;
+import com.chessai.model.Chessboard;
+import com.chessai.model.MoveList;
+import com.chessai.model.Position;
+import com.chessai.util.EvaluationModule;
+import com.chessai.util.LegalMovesModule;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Throughput of the per-node work of the search: move generation, making and taking back moves,
+ * copying a board and evaluating it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BoardBenchmark {
+
+  @Param({
+      ReferencePositions.STARTING_POSITION,
+      ReferencePositions.MIDDLEGAME,
+      ReferencePositions.TACTICAL,
+      ReferencePositions.ENDGAME})
+  public String position;
+
+  private Position referencePosition;
+  private Chessboard board;
+  private MoveList moves;
+  private MoveList legalMoves;
+
+  @Setup
+  public void setUp() {
+    referencePosition = ReferencePositions.get(position);
+    board = referencePosition.board;
+    moves = new MoveList();
+    legalMoves = new MoveList();
+    LegalMovesModule.getLegalMoves(board, referencePosition.getTurn(), legalMoves);
+  }
+
+  @Benchmark
+  public MoveList getLegalMoves() {
+    LegalMovesModule.getLegalMoves(board, referencePosition.getTurn(), moves);
+    return moves;
+  }
+
+  // every legal move of the position is made and taken back once per operation
+  @Benchmark
+  public long makeAndUnmakeMoves() {
+    long keys = 0;
+    for (int i = 0; i < legalMoves.size(); i++) {
+      board.makeMove(legalMoves.get(i));
+      keys ^= board.getZobristKey();
+      board.unmakeMove();
+    }
+    return keys;
+  }
+
+  @Benchmark
+  public Chessboard copyBoard() {
+    return new Chessboard(board);
+  }
+
+  @Benchmark
+  public int pestoEval() {
+    return PestoEval.eval(board);
+  }
+
+  @Benchmark
+  public int boardEvaluation() {
+    return EvaluationModule.boardEvaluation(referencePosition);
+  }
+
+  // the accumulated PeSTO terms make eval cheap after a move; this measures the full recount
+  // done for a board whose bitboards were set directly
+  @Benchmark
+  public void pestoEvalFromScratch(Blackhole blackhole) {
+    board.setBitboard(Chessboard.Piece.empty, board.getBitboard(Chessboard.Piece.empty));
+    blackhole.consume(PestoEval.eval(board));
+  }
+}
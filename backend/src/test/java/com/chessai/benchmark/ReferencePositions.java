@@ -0,0 +1,30 @@
+package com.chessai.benchmark;
+
+import com.chessai.model.Position;
+import com.chessai.util.ChessboardUtilityModule;
+
+import java.util.Map;
+
+/**
+ * The positions every benchmark runs on. They must not change, or results stop being comparable
+ * with earlier commits.
+ */
+final class ReferencePositions {
+
+  static final String STARTING_POSITION = "start";
+  static final String MIDDLEGAME = "middlegame";
+  static final String TACTICAL = "tactical";
+  static final String ENDGAME = "endgame";
+
+  private static final Map<String, String> FENS = Map.of(
+      STARTING_POSITION, "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+      MIDDLEGAME, "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+      TACTICAL, "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+      ENDGAME, "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+
+  private ReferencePositions() {}
+
+  static Position get(String name) {
+    return ChessboardUtilityModule.convertFenToPosition(FENS.get(name));
+  }
+}
@@ -0,0 +1,70 @@
+package com.chessai.benchmark;
+
+import com.chessai.model.Position;
+import com.chessai.search.SearchEngine;
+import com.chessai.search.SearchResult;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time for a fixed-depth search on one thread. Every search starts with an empty transposition
+ * table and history so that each one does the same work; the time taken changes with both the
+ * speed of the search and how much of the tree it prunes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SearchBenchmark {
+
+  private static final int TRANSPOSITION_TABLE_SIZE_MB = 16;
+
+  @Param({
+      ReferencePositions.STARTING_POSITION,
+      ReferencePositions.MIDDLEGAME,
+      ReferencePositions.TACTICAL,
+      ReferencePositions.ENDGAME})
+  public String position;
+
+  @Param({"5"})
+  public int depth;
+
+  private Position referencePosition;
+  private SearchEngine searchEngine;
+
+  @Setup
+  public void setUp() {
+    referencePosition = ReferencePositions.get(position);
+    searchEngine = new SearchEngine(TRANSPOSITION_TABLE_SIZE_MB, 0, 1);
+  }
+
+  @Setup(Level.Invocation)
+  public void clearSearchEngine() {
+    searchEngine.clear();
+  }
+
+  @TearDown
+  public void tearDown() {
+    searchEngine.shutdown();
+  }
+
+  @Benchmark
+  public SearchResult searchToDepth() {
+    return searchEngine.searchToDepth(referencePosition.board, referencePosition.getTurn(), depth);
+  }
+}
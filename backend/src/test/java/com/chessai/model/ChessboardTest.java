@@ -0,0 +1,57 @@
+package com.chessai.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.chessai.model.Position.Turn;
+import com.chessai.util.ChessboardUtilityModule;
+import com.chessai.util.LegalMovesModule;
+import com.chessai.util.ZobristModule;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Checks that the Zobrist key and PeSTO terms makeMove and unmakeMove keep up to date always match
+ * those of the same position set up from scratch, over every line of a shallow move tree.
+ */
+class ChessboardTest {
+
+  @ParameterizedTest(name = "{0}")
+  @CsvSource(delimiter = ';', value = {
+      "kiwipete;r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1;3",
+      "position 3;8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1;4",
+      "position 4;r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1;3",
+      "position 5;rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8;3",
+  })
+  void incrementalTermsMatchFromScratch(String name, String fen, int depth) {
+    Position position = ChessboardUtilityModule.convertFenToPosition(fen);
+    walk(position.board, position.getTurn(), depth);
+  }
+
+  private static void walk(Chessboard board, Turn turn, int depth) {
+    assertMatchesFromScratch(board, turn);
+    if (depth == 0) {
+      return;
+    }
+
+    MoveList moves = new MoveList();
+    LegalMovesModule.getLegalMoves(board, turn, moves);
+    Turn opponent = turn == Turn.WHITE ? Turn.BLACK : Turn.WHITE;
+    for (int i = 0; i < moves.size(); i++) {
+      board.makeMove(moves.get(i));
+      walk(board, opponent, depth - 1);
+      board.unmakeMove();
+      assertMatchesFromScratch(board, turn);
+    }
+  }
+
+  private static void assertMatchesFromScratch(Chessboard board, Turn turn) {
+    String fen = ChessboardUtilityModule.convertChessboardToFen(board, turn);
+    Chessboard fromScratch = ChessboardUtilityModule.convertFenToPosition(fen).board;
+
+    assertEquals(ZobristModule.computeKey(board, turn), board.getZobristKey(), fen);
+    assertEquals(fromScratch.getZobristKey(), board.getZobristKey(), fen);
+    assertEquals(fromScratch.getMidgameScore(), board.getMidgameScore(), fen);
+    assertEquals(fromScratch.getEndgameScore(), board.getEndgameScore(), fen);
+    assertEquals(fromScratch.getGamePhase(), board.getGamePhase(), fen);
+  }
+}
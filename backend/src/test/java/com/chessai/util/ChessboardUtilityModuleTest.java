@@ -0,0 +1,223 @@
+package com.chessai.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.chessai.model.Move;
+import com.chessai.model.Position;
+import java.util.Arrays;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * The notations positions and moves are exchanged in: FEN, coordinate notation, and standard
+ * algebraic notation as read from PGN files and the opening book's games and written in responses.
+ * Moves are checked against the legal move they describe in coordinate notation.
+ */
+class ChessboardUtilityModuleTest {
+
+  private static final String KNIGHTS_AND_ROOKS = "4k3/8/8/8/8/2N3N1/8/R3K2R w KQ - 0 1";
+  private static final String ROOKS_ON_A_FILE = "R7/8/8/8/8/8/7k/R3K3 w - - 0 1";
+  private static final String PROMOTIONS = "1n2k3/P7/8/8/8/8/8/4K3 w - - 0 1";
+  private static final String EN_PASSANT = "4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 2";
+  private static final String BLACK_CASTLING = "r3k2r/8/8/8/8/8/8/3K4 b kq - 0 1";
+
+  @ParameterizedTest(name = "\"{1}\"")
+  @CsvSource({
+      KNIGHTS_AND_ROOKS + ",Nce4,c3e4",
+      KNIGHTS_AND_ROOKS + ",Nge4,g3e4",
+      KNIGHTS_AND_ROOKS + ",Nce2,c3e2",
+      KNIGHTS_AND_ROOKS + ",Nd5,c3d5",
+      KNIGHTS_AND_ROOKS + ",Rab1,a1b1",
+      KNIGHTS_AND_ROOKS + ",Rhf1,h1f1",
+      KNIGHTS_AND_ROOKS + ",Rh1g1,h1g1",
+      ROOKS_ON_A_FILE + ",R1a4,a1a4",
+      ROOKS_ON_A_FILE + ",R8a4,a8a4",
+      PROMOTIONS + ",a8=Q,a7a8q",
+      PROMOTIONS + ",a8Q,a7a8q",
+      PROMOTIONS + ",a8=N+,a7a8n",
+      PROMOTIONS + ",axb8=R,a7b8r",
+      PROMOTIONS + ",axb8B,a7b8b",
+      KNIGHTS_AND_ROOKS + ",O-O,e1g1",
+      KNIGHTS_AND_ROOKS + ",O-O-O,e1c1",
+      BLACK_CASTLING + ",O-O,e8g8",
+      BLACK_CASTLING + ",O-O-O+,e8c8",
+      EN_PASSANT + ",exd6,e5d6",
+      EN_PASSANT + ",exd6!?,e5d6",
+  })
+  void parsesLegalMove(String fen, String notation, String expectedMove) {
+    Position position = ChessboardUtilityModule.convertFenToPosition(fen);
+
+    int move = ChessboardUtilityModule.convertAlgebraicNotationToMove(position.board, position.getTurn(), notation);
+
+    assertEquals(expectedMove, ChessboardUtilityModule.convertMoveToCoordinateNotation(move));
+  }
+
+  @ParameterizedTest(name = "\"{1}\"")
+  @CsvSource({
+      // ambiguous: either knight or either rook can reach the square
+      KNIGHTS_AND_ROOKS + ",Ne4",
+      ROOKS_ON_A_FILE + ",Ra4",
+      // a promotion must name its piece, and only to a knight, bishop, rook or queen
+      PROMOTIONS + ",a8",
+      PROMOTIONS + ",a8=K",
+      PROMOTIONS + ",a8=",
+      // illegal or malformed
+      KNIGHTS_AND_ROOKS + ",Nc3",
+      KNIGHTS_AND_ROOKS + ",Ke3e4",
+      BLACK_CASTLING + ",e5",
+      EN_PASSANT + ",exf6",
+      EN_PASSANT + ",dxe6",
+      EN_PASSANT + ",e9",
+      EN_PASSANT + ",x",
+      EN_PASSANT + ",''",
+      "4k3/8/8/3pP3/8/8/8/4K3 w - - 0 2,exd6",
+      "r3k2r/8/8/8/8/8/8/4K3 b - - 0 1,O-O",
+  })
+  void rejectsMoveThatIsNotLegalOrNotUnique(String fen, String notation) {
+    Position position = ChessboardUtilityModule.convertFenToPosition(fen);
+
+    assertEquals(Move.NONE,
+        ChessboardUtilityModule.convertAlgebraicNotationToMove(position.board, position.getTurn(), notation));
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @CsvSource(delimiter = ';', value = {
+      "no kings;8/8/8/8/8/8/8/8 w - - 0 1",
+      "no white king;4k3/8/8/8/8/8/8/8 w - - 0 1",
+      "no black king;8/8/8/8/8/8/8/4K3 b - - 0 1",
+      "two white kings;4k3/8/8/8/8/8/8/3KK3 w - - 0 1",
+      "two black kings;3kk3/8/8/8/8/8/8/4K3 w - - 0 1",
+      "en passant square on the third rank with white to move;4k3/8/8/8/4P3/8/8/4K3 w - e3 0 1",
+      "en passant square on the sixth rank with black to move;4k3/8/8/3pP3/8/8/8/4K3 b - d6 0 1",
+      "en passant square on the fourth rank;4k3/8/8/8/4P3/8/8/4K3 b - e4 0 1",
+      "en passant square off the board;4k3/8/8/3pP3/8/8/8/4K3 w - d9 0 1",
+      "en passant square without a pawn in front of it;4k3/8/8/3P4/8/8/8/4K3 w - e6 0 1",
+      "en passant square in front of the side to move's pawn;4k3/8/8/3PP3/8/8/8/4K3 w - e6 0 1",
+      "en passant square in front of the side to move's pawn with black to move;4k3/8/8/8/4p3/8/8/4K3 b - e3 0 1",
+      "occupied en passant square;4k3/8/3n4/3pP3/8/8/8/4K3 w - d6 0 1",
+      "occupied square behind the en passant square;4k3/3p4/8/3pP3/8/8/8/4K3 w - d6 0 1",
+      "seven ranks;4k3/8/8/8/8/8/4K3 w - - 0 1",
+      "rank too long;4k3/9/8/8/8/8/8/4K3 w - - 0 1",
+      "rank too short;4k3/7/8/8/8/8/8/4K3 w - - 0 1",
+      "unknown piece;4k3/8/8/8/8/8/8/4K2X w - - 0 1",
+      "unknown side to move;4k3/8/8/8/8/8/8/4K3 x - - 0 1",
+      "unknown castling right;4k3/8/8/8/8/8/8/4K3 w X - 0 1",
+      "missing fields;4k3/8/8/8/8/8/8/4K3 w",
+  })
+  void rejectsInvalidFen(String name, String fen) {
+    assertThrows(IllegalArgumentException.class, () -> ChessboardUtilityModule.convertFenToPosition(fen));
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @CsvSource({
+      "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+      "rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq e6 0 1",
+      "rnbqkbnr/pppppppp/8/8/3P4/8/PPP1PPPP/RNBQKBNR b KQkq d3 0 1",
+      "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+      "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+      "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+      "4k3/8/8/8/8/8/8/R3K3 b Q - 0 1",
+  })
+  void writesFenItWasGiven(String fen) {
+    Position position = ChessboardUtilityModule.convertFenToPosition(fen);
+
+    assertEquals(fen, ChessboardUtilityModule.convertChessboardToFen(position.board, position.getTurn()));
+  }
+
+  @ParameterizedTest(name = "{1}")
+  @CsvSource({
+      ChessboardUtilityModule.STARTING_FEN + ",e2e4",
+      ChessboardUtilityModule.STARTING_FEN + ",g1f3",
+      KNIGHTS_AND_ROOKS + ",e1g1",
+      KNIGHTS_AND_ROOKS + ",e1c1",
+      BLACK_CASTLING + ",e8g8",
+      BLACK_CASTLING + ",h8h1",
+      PROMOTIONS + ",a7a8q",
+      PROMOTIONS + ",a7b8n",
+      EN_PASSANT + ",e5d6",
+  })
+  void coordinateNotationRoundTrips(String fen, String notation) {
+    Position position = ChessboardUtilityModule.convertFenToPosition(fen);
+
+    int move = ChessboardUtilityModule.convertCoordinateNotationToMove(position.board, position.getTurn(), notation);
+
+    assertEquals(notation, ChessboardUtilityModule.convertMoveToCoordinateNotation(move));
+  }
+
+  @ParameterizedTest(name = "\"{1}\"")
+  @CsvSource({
+      KNIGHTS_AND_ROOKS + ",e1e3",
+      KNIGHTS_AND_ROOKS + ",c3c4",
+      PROMOTIONS + ",a7a8",
+      PROMOTIONS + ",a7a8k",
+      EN_PASSANT + ",e5f6",
+      EN_PASSANT + ",e2e4",
+      EN_PASSANT + ",''",
+  })
+  void rejectsCoordinateNotationOfNoLegalMove(String fen, String notation) {
+    Position position = ChessboardUtilityModule.convertFenToPosition(fen);
+
+    assertEquals(Move.NONE,
+        ChessboardUtilityModule.convertCoordinateNotationToMove(position.board, position.getTurn(), notation));
+  }
+
+  @ParameterizedTest(name = "{2}")
+  @CsvSource({
+      ChessboardUtilityModule.STARTING_FEN + ",e2e4,e4",
+      ChessboardUtilityModule.STARTING_FEN + ",g1f3,Nf3",
+      KNIGHTS_AND_ROOKS + ",c3e4,Nce4",
+      KNIGHTS_AND_ROOKS + ",g3e4,Nge4",
+      KNIGHTS_AND_ROOKS + ",c3d5,Nd5",
+      KNIGHTS_AND_ROOKS + ",h1f1,Rf1",
+      ROOKS_ON_A_FILE + ",a1a4,R1a4",
+      ROOKS_ON_A_FILE + ",a8a4,R8a4",
+      // three queens can reach d4: the one sharing a file and a rank with the others needs both
+      "8/5k2/8/8/Q6Q/8/8/Q3K3 w - - 0 1,a4d4,Qa4d4",
+      "8/5k2/8/8/Q6Q/8/8/Q3K3 w - - 0 1,h4d4,Qhd4",
+      "8/5k2/8/8/Q6Q/8/8/Q3K3 w - - 0 1,a1d4,Q1d4",
+      PROMOTIONS + ",a7a8q,a8=Q",
+      PROMOTIONS + ",a7b8q,axb8=Q+",
+      PROMOTIONS + ",a7b8n,axb8=N",
+      EN_PASSANT + ",e5d6,exd6",
+      KNIGHTS_AND_ROOKS + ",e1g1,O-O",
+      KNIGHTS_AND_ROOKS + ",e1c1,O-O-O",
+      BLACK_CASTLING + ",e8c8,O-O-O+",
+      "6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1,a1a8,Ra8#",
+  })
+  void writesAlgebraicNotation(String fen, String coordinateNotation, String expectedNotation) {
+    Position position = ChessboardUtilityModule.convertFenToPosition(fen);
+    int move = ChessboardUtilityModule.convertCoordinateNotationToMove(
+        position.board, position.getTurn(), coordinateNotation);
+    String fenBefore = ChessboardUtilityModule.convertChessboardToFen(position.board, position.getTurn());
+
+    String notation = ChessboardUtilityModule.convertMoveToAlgebraicNotation(position.board, position.getTurn(), move);
+
+    assertEquals(expectedNotation, notation);
+    assertEquals(move,
+        ChessboardUtilityModule.convertAlgebraicNotationToMove(position.board, position.getTurn(), notation));
+    assertEquals(fenBefore, ChessboardUtilityModule.convertChessboardToFen(position.board, position.getTurn()));
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @CsvSource({
+      "no kings,''",
+      "no white king,bK@e8",
+      "no black king,wK@e1",
+      "two white kings,wK@e1 wK@d1 bK@e8",
+      "two black kings,wK@e1 bK@e8 bK@d8",
+      "unknown piece,wK@e1 bK@e8 wX@a1",
+  })
+  void rejectsInvalidBoard(String name, String pieces) {
+    String[] board = new String[64];
+    Arrays.fill(board, "");
+    for (String piece : pieces.split(" ")) {
+      if (!piece.isEmpty()) {
+        String[] pieceAndSquare = piece.split("@");
+        board[Arrays.asList(ChessboardUtilityModule.squares).indexOf(pieceAndSquare[1])] = pieceAndSquare[0];
+      }
+    }
+
+    assertThrows(IllegalArgumentException.class, () -> ChessboardUtilityModule.convertStringArrayToChessboard(board));
+  }
+}
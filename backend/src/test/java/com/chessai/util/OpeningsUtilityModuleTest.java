@@ -0,0 +1,67 @@
+package com.chessai.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.chessai.model.Move;
+import com.chessai.model.Position;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Book lookups for a book built from two games. Book positions are matched on their pieces alone,
+ * so these check that a book move is only played where it is legal.
+ */
+class OpeningsUtilityModuleTest {
+
+  private static final String GAMES = """
+      1. e4 e5 2. Nf3 Nf6 3. Bc4 Be7 4. O-O O-O 1-0
+      1. e4 Nf6 2. e5 d5 3. exd6 exd6 0-1
+      """;
+
+  @TempDir
+  static Path bookDirectory;
+
+  @BeforeAll
+  static void buildBook() throws IOException {
+    Path games = bookDirectory.resolve("games.txt");
+    Path book = bookDirectory.resolve("book.bin");
+    Files.writeString(games, GAMES);
+    OpeningBookBuilder.buildOpeningBook(games.toString(), book.toString());
+    OpeningsUtilityModule.initOpeningBook(book.toString());
+  }
+
+  @Test
+  void playsBookCastlingWithCastlingRights() {
+    Position position = ChessboardUtilityModule.convertFenToPosition(
+        "rnbqk2r/ppppbppp/5n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQ1RK1 b kq - 5 4");
+
+    int move = OpeningsUtilityModule.getBookMove(position.board, position.getTurn());
+
+    assertEquals("e8g8", ChessboardUtilityModule.convertMoveToCoordinateNotation(move));
+  }
+
+  @Test
+  void skipsBookCastlingAfterCastlingRightsWereLost() {
+    // the same pieces, but black's king and rook have moved back and forth
+    Position position = ChessboardUtilityModule.convertFenToPosition(
+        "rnbqk2r/ppppbppp/5n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQ1RK1 b - - 9 6");
+
+    assertEquals(Move.NONE, OpeningsUtilityModule.getBookMove(position.board, position.getTurn()));
+  }
+
+  @Test
+  void playsBookEnPassantCaptureOnlyRightAfterTheDoubleStep() {
+    String pieces = "rnbqkb1r/ppp1pppp/5n2/3pP3/8/8/PPPP1PPP/RNBQKBNR w KQkq ";
+    Position afterDoubleStep = ChessboardUtilityModule.convertFenToPosition(pieces + "d6 0 3");
+    Position later = ChessboardUtilityModule.convertFenToPosition(pieces + "- 0 3");
+
+    int move = OpeningsUtilityModule.getBookMove(afterDoubleStep.board, afterDoubleStep.getTurn());
+
+    assertEquals("e5d6", ChessboardUtilityModule.convertMoveToCoordinateNotation(move));
+    assertEquals(Move.NONE, OpeningsUtilityModule.getBookMove(later.board, later.getTurn()));
+  }
+}
@@ -0,0 +1,49 @@
+package com.chessai.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.chessai.model.Position;
+import java.util.Map;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Perft counts for the standard test positions from the Chess Programming Wiki, which between them
+ * cover castling, en passant, promotions, pins and checks. The depths are kept low enough for the
+ * suite to run in a few seconds.
+ */
+class PerftModuleTest {
+
+  @ParameterizedTest(name = "{0}")
+  @CsvSource(delimiter = ';', value = {
+      "starting position;rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1;5;4865609",
+      "kiwipete;r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1;4;4085603",
+      "position 3;8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1;5;674624",
+      "position 4;r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1;4;422333",
+      "position 4 mirrored;r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b KQ - 0 1;4;422333",
+      "position 5;rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8;4;2103487",
+      "position 6;r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10;4;3894594",
+  })
+  void perftMatchesKnownCounts(String name, String fen, int depth, long expectedNodes) {
+    Position position = ChessboardUtilityModule.convertFenToPosition(fen);
+    long zobristKey = position.board.getZobristKey();
+
+    long nodes = PerftModule.perft(position.board, position.getTurn(), depth);
+
+    assertEquals(expectedNodes, nodes);
+    // every move was taken back
+    assertEquals(zobristKey, position.board.getZobristKey());
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @CsvSource(delimiter = ';', value = {
+      "kiwipete;r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1;3;97862",
+      "position 5;rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8;3;62379",
+  })
+  void divideAddsUpToPerft(String name, String fen, int depth, long expectedNodes) {
+    Position position = ChessboardUtilityModule.convertFenToPosition(fen);
+    Map<String, Long> divide = PerftModule.divide(position.board, position.getTurn(), depth);
+
+    assertEquals(expectedNodes, divide.values().stream().mapToLong(Long::longValue).sum());
+  }
+}
@@ -0,0 +1,109 @@
+package com.chessai.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.chessai.util.PgnAnalyzer.PgnGame;
+import com.chessai.util.PgnAnalyzer.PgnReader;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Reading games from PGN text and splitting their movetext into the moves of the main line.
+ */
+class PgnAnalyzerTest {
+
+  @Test
+  void readsGamesWithAndWithoutTags() throws IOException {
+    String pgn = """
+        [Event "Casual game"]
+        [White "A"]
+        [Black "B"]
+        [Result "1-0"]
+
+        1. e4 e5 2. Nf3 Nc6
+        3. Bb5 1-0
+
+        [Event "From a position"]
+        [FEN "4k3/8/8/8/8/8/4P3/4K3 w - - 0 1"]
+        1. e4 Kd7 *
+
+        1. d4 d5 *
+        """;
+
+    try (PgnReader reader = new PgnReader(new BufferedReader(new StringReader(pgn)))) {
+      PgnGame first = reader.nextGame();
+      assertEquals(ChessboardUtilityModule.STARTING_FEN, first.fen);
+      assertEquals(List.of("e4", "e5", "Nf3", "Nc6", "Bb5"), PgnAnalyzer.getMoveTokens(first.moveText));
+
+      // no blank line between this game's tags and moves, and no tags at all on the next game
+      PgnGame second = reader.nextGame();
+      assertEquals("4k3/8/8/8/8/8/4P3/4K3 w - - 0 1", second.fen);
+      assertEquals(List.of("e4", "Kd7"), PgnAnalyzer.getMoveTokens(second.moveText));
+
+      PgnGame third = reader.nextGame();
+      assertEquals(ChessboardUtilityModule.STARTING_FEN, third.fen);
+      assertEquals(List.of("d4", "d5"), PgnAnalyzer.getMoveTokens(third.moveText));
+
+      assertNull(reader.nextGame());
+    }
+  }
+
+  @Test
+  void skipsEscapedLines() throws IOException {
+    String pgn = """
+        % written by some other program
+        [Event "Game"]
+
+        1. e4 e5
+        % in the middle of the moves
+        2. Nf3 *
+        """;
+
+    try (PgnReader reader = new PgnReader(new BufferedReader(new StringReader(pgn)))) {
+      assertEquals(List.of("e4", "e5", "Nf3"), PgnAnalyzer.getMoveTokens(reader.nextGame().moveText));
+      assertNull(reader.nextGame());
+    }
+  }
+
+  @Test
+  void skipsBraceAndRestOfLineComments() throws IOException {
+    String pgn = """
+        [Event "Game"]
+
+        1. e4 {The king's pawn; the most popular first move} e5 ; symmetrical
+        2. Nf3 {attacks e5}Nc6; defends it {but no brace comment here
+        3. Bb5 a6 *
+        """;
+
+    try (PgnReader reader = new PgnReader(new BufferedReader(new StringReader(pgn)))) {
+      assertEquals(List.of("e4", "e5", "Nf3", "Nc6", "Bb5", "a6"),
+          PgnAnalyzer.getMoveTokens(reader.nextGame().moveText));
+    }
+  }
+
+  @Test
+  void skipsNestedVariations() {
+    String moveText = "1. e4 e5 (1... c5 2. Nf3 (2. c3 d5 (2... Nf6)) 2... d6) 2. Nf3 (2. f4 {gambit}) Nc6 *";
+
+    assertEquals(List.of("e4", "e5", "Nf3", "Nc6"), PgnAnalyzer.getMoveTokens(moveText));
+  }
+
+  @Test
+  void skipsMoveNumbersWrittenAgainstTheMove() {
+    String moveText = "1.e4 e5 2.Nf3 Nc6 12.Bb5 12...a6 13... Ba4 1/2-1/2";
+
+    assertEquals(List.of("e4", "e5", "Nf3", "Nc6", "Bb5", "a6", "Ba4"), PgnAnalyzer.getMoveTokens(moveText));
+  }
+
+  @Test
+  void skipsAnnotationsAndNumericGlyphs() {
+    String moveText = "1. e4! $1 e5?! 2. Nf3 $14 Nc6?? $4 3. Bb5!? a6+ 4. Bxc6+!! dxc6 0-1";
+
+    assertEquals(List.of("e4", "e5", "Nf3", "Nc6", "Bb5", "a6+", "Bxc6+", "dxc6"),
+        PgnAnalyzer.getMoveTokens(moveText));
+  }
+}
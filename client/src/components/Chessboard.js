@@ -1,9 +1,11 @@
 import { React, useState } from 'react'
 import '../styles/Chessboard.css'
 import Square from './Square'
-import axios from 'axios'
 
 const REST_API_URL = 'http://localhost:8080/api';
+// delay before retrying a move the busy engine turned away, doubled on every retry up to the maximum
+const ENGINE_RETRY_DELAY_MS = 1000;
+const ENGINE_RETRY_MAX_DELAY_MS = 8000;
 
 const squares = [
     "a1", "b1", "c1", "d1", "e1", "f1", "g1", "h1",
@@ -19,11 +21,15 @@ const squares = [
 let turn = "w";
 let selectedPiece = "";
 let whiteKingHasMoved = false;
+// identifies this game to the backend, which keeps separate state for every game
+const gameId = Date.now().toString(36) + Math.random().toString(36).substring(2);
 
 export default function Chessboard({ updateInfoBug }) {
     const [board, setBoard] = useState(boardInit());
     const [selectedSquareIndex, setSelectedSquareIndex] = useState(-1)
     const [legalMoves, setLegalMoves] = useState([]);
+    // the engine's latest best move while it is still searching, with the request to abort to play it
+    const [bestMoveSoFar, setBestMoveSoFar] = useState(null);
     const indexes = [
         56, 57, 58, 59, 60, 61, 62, 63,
         48, 49, 50, 51, 52, 53, 54, 55,
@@ -53,6 +59,10 @@ export default function Chessboard({ updateInfoBug }) {
                     );
                 })}
             </div>
+            {bestMoveSoFar !== null &&
+                <button className="move-now-button" onClick={playBestMoveSoFar}>
+                    Play {bestMoveSoFar.progress['bestMove']} now
+                </button>}
         </>
     );
 
@@ -139,30 +149,7 @@ export default function Chessboard({ updateInfoBug }) {
         setLegalMoves([])
 
         turn = turn === 'w' ? 'b' : 'w';
-        let jsonPayload = JSON.stringify(board);
-        updateInfoBug("Thinking...");
-
-        axios({
-            method: 'post',
-            url: REST_API_URL + '/getComputerMove',
-            headers: {},
-            data: {
-                jsonPayload: jsonPayload,
-                turn: turn,
-                notation: notation,
-                whiteKingHasMoved: whiteKingHasMoved.toString(),
-            }
-        }).then(response => {
-            if (response.data['gameStatus'] !== 'ongoing') {
-                endGame(response.data['gameStatus']);
-            } else {
-                setTimeout(function(){
-                    renderComputerMove(response.data);
-                }, 250);
-            }
-        }).catch(error => {
-            console.error(error);
-        });
+        requestComputerMove(board, notation, 0);
     }
 
     function handlePieceDrop(event, data) {
@@ -362,32 +349,118 @@ export default function Chessboard({ updateInfoBug }) {
 
         turn = turn === 'w' ? 'b' : 'w';
 
-        let jsonPayload = JSON.stringify(board);
-        updateInfoBug("Thinking...");
+        requestComputerMove(board, notation, 0);
+    }
 
-        axios({
-            method: 'post',
-            url: REST_API_URL + '/getComputerMove',
-            headers: {},
-            data: {
-                jsonPayload: jsonPayload,
+    // asks the engine to reply to the player's move, showing its progress while it searches; while
+    // the engine is busy with other games the same request is sent again after a growing delay
+    function requestComputerMove(board, notation, attempt) {
+        updateInfoBug("Thinking...");
+        const abortController = new AbortController();
+
+        fetch(REST_API_URL + '/getComputerMoveStream', {
+            method: 'POST',
+            signal: abortController.signal,
+            headers: { 'Content-Type': 'application/json' },
+            body: JSON.stringify({
+                jsonPayload: JSON.stringify(board),
                 turn: turn,
                 notation: notation,
                 whiteKingHasMoved: whiteKingHasMoved.toString(),
-            }
+                gameId: gameId,
+            }),
         }).then(response => {
-            if (response.data['gameStatus'] !== 'ongoing') {
-                endGame(response.data['gameStatus']);
-            } else {
-                setTimeout(function(){
-                    renderComputerMove(response.data);
-                }, 250);
+            if (!response.ok) {
+                throw new Error("Engine request failed with status " + response.status);
             }
+            return readServerSentEvents(response, (eventName, data) => {
+                if (eventName === 'progress') {
+                    const progress = JSON.parse(data);
+                    renderSearchProgress(progress);
+                    setBestMoveSoFar({ progress: progress, abortController: abortController });
+                } else if (eventName === 'move') {
+                    setBestMoveSoFar(null);
+                    const moveData = JSON.parse(data);
+                    if (moveData['gameStatus'] !== 'ongoing') {
+                        endGame(moveData['gameStatus']);
+                    } else {
+                        setTimeout(function(){
+                            renderComputerMove(moveData);
+                        }, 250);
+                    }
+                } else if (eventName === 'busy') {
+                    retryComputerMove(board, notation, attempt);
+                } else {
+                    throw new Error(data);
+                }
+            });
         }).catch(error => {
+            setBestMoveSoFar(null);
+            // the player took the best move so far
+            if (error.name === 'AbortError') {
+                return;
+            }
             console.error(error);
+            updateInfoBug("Could not reach the engine. Reload the page to start a new game.");
         });
     }
 
+    // EventSource can only send GET requests, so the events are read from the body of the POST
+    // response: each event is a block of "event:" and "data:" lines ended by a blank line
+    async function readServerSentEvents(response, handleEvent) {
+        const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+        let buffer = '';
+        while (true) {
+            const { value, done } = await reader.read();
+            if (done) {
+                return;
+            }
+            buffer += value.replace(/\r\n/g, '\n');
+
+            let eventEnd;
+            while ((eventEnd = buffer.indexOf('\n\n')) >= 0) {
+                const event = buffer.substring(0, eventEnd);
+                buffer = buffer.substring(eventEnd + 2);
+
+                let eventName = 'message';
+                const data = [];
+                for (const line of event.split('\n')) {
+                    if (line.startsWith('event:')) {
+                        eventName = line.substring(6).trim();
+                    } else if (line.startsWith('data:')) {
+                        data.push(line.substring(5).replace(/^ /, ''));
+                    }
+                }
+                handleEvent(eventName, data.join('\n'));
+            }
+        }
+    }
+
+    function renderSearchProgress(progress) {
+        updateInfoBug("Thinking... depth " + progress['depth'] + ", best move " + progress['bestMove']
+            + ", " + progress['positionsAnalyzed'].toLocaleString() + " positions analyzed");
+    }
+
+    // closing the stream stops the search, which then also plays the best move of its last
+    // completed depth; progress events carry the board after their best move, like the move event
+    function playBestMoveSoFar() {
+        const { progress, abortController } = bestMoveSoFar;
+        setBestMoveSoFar(null);
+        abortController.abort();
+        renderComputerMove({
+            ...progress,
+            positionsAnalyzed: progress['positionsAnalyzed'].toLocaleString(),
+        });
+    }
+
+    function retryComputerMove(board, notation, attempt) {
+        const delay = Math.min(ENGINE_RETRY_MAX_DELAY_MS, ENGINE_RETRY_DELAY_MS * 2 ** attempt);
+        updateInfoBug("The engine is busy, retrying in " + Math.round(delay / 1000) + "s...");
+        setTimeout(function(){
+            requestComputerMove(board, notation, attempt + 1);
+        }, delay);
+    }
+
     function endGame(gameStatus) {
         // disable clicks on chessboard
         document.getElementById("container").style.pointerEvents = "none";